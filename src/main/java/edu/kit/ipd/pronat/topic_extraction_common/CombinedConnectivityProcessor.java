@@ -3,13 +3,12 @@
  */
 package edu.kit.ipd.pronat.topic_extraction_common;
 
-import java.util.ArrayList;
-import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Objects;
 import java.util.Set;
 
+import edu.kit.ipd.pronat.topic_extraction_common.graph.SenseSet;
 import edu.kit.ipd.pronat.topic_extraction_common.graph.TopicGraph;
 import edu.kit.ipd.pronat.topic_extraction_common.graph.WikiVertex;
 import org.slf4j.Logger;
@@ -46,7 +45,7 @@ public class CombinedConnectivityProcessor implements VertexScoreProcessor {
 	public Set<VertexScoreTuple> processCentralityScores(List<VertexScoreTuple> centralityScoresTuples) {
 		Objects.requireNonNull(topicGraph);
 		Objects.requireNonNull(centralityScoresTuples);
-		centralityScoresTuples.sort(Collections.reverseOrder());
+		RankedVertexScores.ensureDescendingOrder(centralityScoresTuples);
 
 		final Set<VertexScoreTuple> vsSet = new HashSet<>();
 
@@ -92,8 +91,8 @@ public class CombinedConnectivityProcessor implements VertexScoreProcessor {
 				// act for vertices, that were not connected before
 				// try to get a as high as possible connectivity between
 				// remaining senses
-				final List<WikiVertex> remainingSenses = new ArrayList<>(topicGraph.getSenses());
-				remainingSenses.removeAll(topicGraph.getInitialVerticesFor(vst.vertex));
+				final SenseSet remainingSenses = topicGraph.getSenseSet();
+				remainingSenses.removeAll(topicGraph.getConnectedSenses(vst.vertex));
 				final int remainingConnectivity = Math.min(currentConnectivity, topicGraph.getSenses().size() - currentConnectivity);
 				if (vsSet.size() < topics) {
 					processRemainingTopics(centralityScoresTuples, vsSet, processedVertices, remainingSenses, remainingConnectivity);
@@ -106,21 +105,17 @@ public class CombinedConnectivityProcessor implements VertexScoreProcessor {
 	}
 
 	private void processRemainingTopics(List<VertexScoreTuple> centralityScoresTuples, Set<VertexScoreTuple> vsSet,
-			Set<WikiVertex> processedVertices, List<WikiVertex> remainingSenses, int remainingConnectivity) {
+			Set<WikiVertex> processedVertices, SenseSet remainingSenses, int remainingConnectivity) {
 		// TODO!
-		while ((remainingSenses.size() > 0) && (remainingConnectivity > 0)) {
+		while (!remainingSenses.isEmpty() && (remainingConnectivity > 0)) {
 			final Set<WikiVertex> remConnectedVertices = topicGraph.getVerticesWithSenseConnectivity(remainingConnectivity);
 			// find vertices, for which the list of connected vertices
 			// contains only vertices, that are "remaining"
-			final List<WikiVertex> selectedRemVertices = new ArrayList<>();
-			testRem: for (final WikiVertex currTry : remConnectedVertices) {
-				final List<WikiVertex> vConnListTry = topicGraph.getInitialVerticesFor(currTry);
-				for (final WikiVertex ttt : vConnListTry) {
-					if (!remainingSenses.contains(ttt)) {
-						continue testRem;
-					}
+			final Set<WikiVertex> selectedRemVertices = new HashSet<>();
+			for (final WikiVertex currTry : remConnectedVertices) {
+				if (topicGraph.getConnectedSenses(currTry).isSubsetOf(remainingSenses)) {
+					selectedRemVertices.add(currTry);
 				}
-				selectedRemVertices.add(currTry);
 			}
 			if (selectedRemVertices.isEmpty()) {
 				remainingConnectivity--;
@@ -130,10 +125,9 @@ public class CombinedConnectivityProcessor implements VertexScoreProcessor {
 					if (!selectedRemVertices.contains(vst.vertex) || vsSet.contains(vst)) {
 						continue;
 					}
-					final List<WikiVertex> vertexConnList = topicGraph.getInitialVerticesFor(vst.vertex);
 					vsSet.add(vst);
 					processedVertices.add(vst.vertex);
-					remainingSenses.removeAll(vertexConnList);
+					remainingSenses.removeAll(topicGraph.getConnectedSenses(vst.vertex));
 					found = true;
 					break;
 				}
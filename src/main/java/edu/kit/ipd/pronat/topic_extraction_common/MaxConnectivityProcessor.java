@@ -1,13 +1,11 @@
 package edu.kit.ipd.pronat.topic_extraction_common;
 
-import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Objects;
 import java.util.Set;
 
 import edu.kit.ipd.pronat.topic_extraction_common.graph.TopicGraph;
-import edu.kit.ipd.pronat.topic_extraction_common.graph.WikiVertex;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -41,7 +39,7 @@ public class MaxConnectivityProcessor implements VertexScoreProcessor {
 	public Set<VertexScoreTuple> processCentralityScores(List<VertexScoreTuple> centralityScoresTuples) {
 		Objects.requireNonNull(topicGraph);
 		Objects.requireNonNull(centralityScoresTuples);
-		centralityScoresTuples.sort(Collections.reverseOrder());
+		RankedVertexScores.ensureDescendingOrder(centralityScoresTuples);
 
 		int remainingTopicsToSet = topics;
 
@@ -56,8 +54,7 @@ public class MaxConnectivityProcessor implements VertexScoreProcessor {
 		int currentConnectivity = maxConnectivity;
 		while ((remainingTopicsToSet > 0) && (currentConnectivity > 0)) {
 			for (final VertexScoreTuple v : centralityScoresTuples) {
-				final List<WikiVertex> vertexConnList = topicGraph.getInitialVerticesFor(v.vertex);
-				if (vertexConnList.size() == currentConnectivity) {
+				if (topicGraph.getSenseConnectivity(v.vertex) == currentConnectivity) {
 					retSet.add(v);
 					remainingTopicsToSet--;
 				}
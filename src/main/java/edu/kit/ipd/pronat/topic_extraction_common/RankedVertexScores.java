@@ -0,0 +1,106 @@
+package edu.kit.ipd.pronat.topic_extraction_common;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.RandomAccess;
+
+import edu.kit.ipd.pronat.topic_extraction_common.graph.WikiVertex;
+
+/**
+ * Vertices ordered by descending centrality score, sorted lazily. The vertices
+ * are kept in a binary heap (built in linear time) and only moved into the
+ * sorted prefix when an element is accessed. Processors that only look at the
+ * best vertices therefore pay O(V + k log V) instead of O(V log V). Vertices
+ * with the same score keep the order of the score map, as with a stable sort.
+ *
+ * @author Sebastian Weigelt
+ *
+ */
+final class RankedVertexScores extends AbstractList<VertexScoreTuple> implements RandomAccess {
+	private final WikiVertex[] vertices;
+	private final double[] scores;
+	/** heap of the indices of the vertices that are not sorted yet */
+	private final int[] heap;
+	private int heapSize;
+	private final List<VertexScoreTuple> sorted;
+
+	RankedVertexScores(Map<WikiVertex, Double> centralityScores) {
+		final int size = centralityScores.size();
+		vertices = new WikiVertex[size];
+		scores = new double[size];
+		heap = new int[size];
+		int i = 0;
+		for (final Entry<WikiVertex, Double> entry : centralityScores.entrySet()) {
+			vertices[i] = entry.getKey();
+			scores[i] = entry.getValue();
+			heap[i] = i;
+			i++;
+		}
+		heapSize = size;
+		for (int node = (heapSize / 2) - 1; node >= 0; node--) {
+			siftDown(node);
+		}
+		sorted = new ArrayList<>(Math.min(size, 64));
+	}
+
+	/**
+	 * Sorts the given scores in descending order, unless they are already
+	 * ranked.
+	 *
+	 * @param centralityScoresTuples
+	 *            the scores
+	 */
+	static void ensureDescendingOrder(List<VertexScoreTuple> centralityScoresTuples) {
+		if (!(centralityScoresTuples instanceof RankedVertexScores)) {
+			centralityScoresTuples.sort(Collections.reverseOrder());
+		}
+	}
+
+	@Override
+	public VertexScoreTuple get(int index) {
+		if ((index < 0) || (index >= vertices.length)) {
+			throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + vertices.length);
+		}
+		while (sorted.size() <= index) {
+			final int top = heap[0];
+			heap[0] = heap[--heapSize];
+			siftDown(0);
+			sorted.add(new VertexScoreTuple(vertices[top], scores[top]));
+		}
+		return sorted.get(index);
+	}
+
+	@Override
+	public int size() {
+		return vertices.length;
+	}
+
+	/** Whether the vertex with index a is ranked before the vertex with index b */
+	private boolean before(int a, int b) {
+		final int cmp = Double.compare(scores[a], scores[b]);
+		return cmp == 0 ? a < b : cmp > 0;
+	}
+
+	private void siftDown(int node) {
+		final int element = heap[node];
+		while (true) {
+			int child = (2 * node) + 1;
+			if (child >= heapSize) {
+				break;
+			}
+			if (((child + 1) < heapSize) && before(heap[child + 1], heap[child])) {
+				child++;
+			}
+			if (!before(heap[child], element)) {
+				break;
+			}
+			heap[node] = heap[child];
+			node = child;
+		}
+		heap[node] = element;
+	}
+}
@@ -0,0 +1,161 @@
+package edu.kit.ipd.pronat.topic_extraction_common;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map.Entry;
+
+import edu.kit.ipd.pronat.topic_extraction_common.graph.TopicGraph;
+
+/**
+ * Bounded cache for sense graphs. The weight of an entry is the number of
+ * vertices plus the number of edges of its graph. If the overall weight
+ * exceeds the maximum weight, the least recently used entries are evicted.
+ * Graphs that are heavier than the maximum weight on their own are not cached
+ * at all.
+ *
+ * @author Sebastian Weigelt
+ *
+ */
+public class SenseGraphCache {
+	/** Default maximum weight, i.e. roughly two million vertices and edges */
+	public static final long DEFAULT_MAXIMUM_WEIGHT = 2_000_000L;
+
+	private final long maximumWeight;
+	private final LinkedHashMap<String, CacheEntry> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+	private long weight = 0;
+	private long hitCount = 0;
+	private long missCount = 0;
+	private long evictionCount = 0;
+
+	public SenseGraphCache() {
+		this(DEFAULT_MAXIMUM_WEIGHT);
+	}
+
+	public SenseGraphCache(long maximumWeight) {
+		if (maximumWeight < 1) {
+			throw new IllegalArgumentException("Tried to set an invalid maximum weight. Must be >0");
+		}
+		this.maximumWeight = maximumWeight;
+	}
+
+	/**
+	 * Returns the cached graph for the given key and marks it as recently used.
+	 *
+	 * @param key
+	 *            the key
+	 * @return the cached graph or <code>null</code>, if there is none
+	 */
+	public synchronized TopicGraph get(String key) {
+		final CacheEntry entry = entries.get(key);
+		if (entry == null) {
+			missCount++;
+			return null;
+		}
+		hitCount++;
+		return entry.graph;
+	}
+
+	/**
+	 * Returns the cached graph for the given key without counting a hit or miss.
+	 *
+	 * @param key
+	 *            the key
+	 * @return the cached graph or <code>null</code>, if there is none
+	 */
+	public synchronized TopicGraph peek(String key) {
+		final CacheEntry entry = entries.get(key);
+		return entry == null ? null : entry.graph;
+	}
+
+	/**
+	 * Caches the given graph, replacing the graph cached for the key before.
+	 * Evicts the least recently used entries, if the maximum weight is exceeded.
+	 *
+	 * @param key
+	 *            the key
+	 * @param graph
+	 *            the graph to cache
+	 */
+	public synchronized void put(String key, TopicGraph graph) {
+		final long graphWeight = weigh(graph);
+		invalidate(key);
+		if (graphWeight > maximumWeight) {
+			return;
+		}
+		entries.put(key, new CacheEntry(graph, graphWeight));
+		weight += graphWeight;
+		final Iterator<Entry<String, CacheEntry>> iterator = entries.entrySet().iterator();
+		while ((weight > maximumWeight) && iterator.hasNext()) {
+			final Entry<String, CacheEntry> eldest = iterator.next();
+			if (eldest.getKey().equals(key)) {
+				continue;
+			}
+			weight -= eldest.getValue().weight;
+			iterator.remove();
+			evictionCount++;
+		}
+	}
+
+	/**
+	 * Removes the graph cached for the given key, if any.
+	 *
+	 * @param key
+	 *            the key
+	 */
+	public synchronized void invalidate(String key) {
+		final CacheEntry removed = entries.remove(key);
+		if (removed != null) {
+			weight -= removed.weight;
+		}
+	}
+
+	public synchronized void clear() {
+		entries.clear();
+		weight = 0;
+	}
+
+	public synchronized int size() {
+		return entries.size();
+	}
+
+	public synchronized long getWeight() {
+		return weight;
+	}
+
+	public long getMaximumWeight() {
+		return maximumWeight;
+	}
+
+	public synchronized long getHitCount() {
+		return hitCount;
+	}
+
+	public synchronized long getMissCount() {
+		return missCount;
+	}
+
+	public synchronized long getEvictionCount() {
+		return evictionCount;
+	}
+
+	private static long weigh(TopicGraph graph) {
+		return (long) graph.getVerticesSize() + graph.getEdgesSize();
+	}
+
+	@Override
+	public synchronized String toString() {
+		return "SenseGraphCache [size=" + entries.size() + ", weight=" + weight + "/" + maximumWeight + ", hits=" + hitCount + ", misses="
+				+ missCount + ", evictions=" + evictionCount + "]";
+	}
+
+	private static final class CacheEntry {
+		private final TopicGraph graph;
+		private final long weight;
+
+		private CacheEntry(TopicGraph graph, long weight) {
+			this.graph = graph;
+			this.weight = weight;
+		}
+	}
+}
@@ -0,0 +1,232 @@
+package edu.kit.ipd.pronat.topic_extraction_common;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import edu.kit.ipd.pronat.topic_extraction_common.ontology.CachedResourceConnector;
+import edu.kit.ipd.pronat.topic_extraction_common.ontology.DBPediaConnector;
+import edu.kit.ipd.pronat.topic_extraction_common.ontology.RateLimitedResourceConnector;
+
+/**
+ * Pre-computes the sense graphs for a known vocabulary (e.g. of the domain of
+ * a deployment), so that later requests do not need any cold lookups. The
+ * sense graphs are created in parallel by a {@link TopicExtractionCore}, which
+ * fills its sense graph cache (and its {@link SenseGraphStore}, if set) as
+ * well as the data of a {@link CachedResourceConnector}. To not overload the
+ * endpoint, the connector should be rate limited (see
+ * {@link RateLimitedResourceConnector}).
+ *
+ * <p>
+ * Usage from the command line:
+ * <code>SenseGraphPrewarmer &lt;word list&gt; [queries per second] [parallelism]</code>.
+ * The word list contains one word per line. The created sense graphs are
+ * written to the default {@link SenseGraphStore}.
+ * </p>
+ *
+ * @author Sebastian Weigelt
+ *
+ */
+public class SenseGraphPrewarmer {
+	private static final Logger logger = LoggerFactory.getLogger(SenseGraphPrewarmer.class);
+
+	private static final double DEFAULT_QUERIES_PER_SECOND = 20;
+	private static final int DEFAULT_PARALLELISM = 4;
+	private static final int LOG_EVERY = 100;
+
+	private final TopicExtractionCore core;
+	private final int parallelism;
+	private Consumer<Progress> progressListener = progress -> {
+	};
+
+	/**
+	 * The progress of pre-warming.
+	 */
+	public static final class Progress {
+		private final int total;
+		private final int done;
+		private final int unresolved;
+		private final int failed;
+		private final Duration elapsed;
+
+		private Progress(int total, int done, int unresolved, int failed, Duration elapsed) {
+			this.total = total;
+			this.done = done;
+			this.unresolved = unresolved;
+			this.failed = failed;
+			this.elapsed = elapsed;
+		}
+
+		public int getTotal() {
+			return total;
+		}
+
+		/**
+		 * @return the number of processed words (including unresolved and failed
+		 *         ones)
+		 */
+		public int getDone() {
+			return done;
+		}
+
+		/**
+		 * @return the number of words that could not be resolved to a resource
+		 */
+		public int getUnresolved() {
+			return unresolved;
+		}
+
+		/**
+		 * @return the number of words whose sense graph could not be created
+		 */
+		public int getFailed() {
+			return failed;
+		}
+
+		public Duration getElapsed() {
+			return elapsed;
+		}
+
+		/**
+		 * @return the processed words per second
+		 */
+		public double getThroughput() {
+			final long millis = Math.max(1, elapsed.toMillis());
+			return (done * 1000d) / millis;
+		}
+
+		@Override
+		public String toString() {
+			return String.format("%d/%d words (%d unresolved, %d failed) in %ds, %.2f words/s", done, total, unresolved, failed,
+					elapsed.getSeconds(), getThroughput());
+		}
+	}
+
+	/**
+	 * Creates a pre-warmer.
+	 *
+	 * @param core
+	 *            the core whose caches are filled
+	 * @param parallelism
+	 *            number of sense graphs created concurrently
+	 */
+	public SenseGraphPrewarmer(TopicExtractionCore core, int parallelism) {
+		if (parallelism < 1) {
+			throw new IllegalArgumentException("Tried to set an invalid parallelism. Must be >0");
+		}
+		this.core = core;
+		this.parallelism = parallelism;
+	}
+
+	/**
+	 * Sets a listener that is notified after every processed word.
+	 *
+	 * @param progressListener
+	 *            the listener
+	 */
+	public void setProgressListener(Consumer<Progress> progressListener) {
+		this.progressListener = progressListener;
+	}
+
+	/**
+	 * Creates the sense graphs for all given words. Blocks until all are done,
+	 * including the background completions of sense graphs that hit a timeout
+	 * (for at most the background completion timeout of the core).
+	 *
+	 * @param words
+	 *            the vocabulary
+	 * @return the final progress
+	 */
+	public Progress prewarm(Collection<String> words) {
+		final Set<String> distinctWords = new LinkedHashSet<>(words);
+		final int total = distinctWords.size();
+		final AtomicInteger done = new AtomicInteger();
+		final AtomicInteger unresolved = new AtomicInteger();
+		final AtomicInteger failed = new AtomicInteger();
+		final long start = System.nanoTime();
+		logger.info("Pre-warming sense graphs for {} words", total);
+
+		final ExecutorService workers = Executors.newFixedThreadPool(parallelism);
+		try {
+			final List<CompletableFuture<Void>> futures = new ArrayList<>(total);
+			for (final String word : distinctWords) {
+				futures.add(CompletableFuture.runAsync(() -> {
+					try {
+						if (!core.preloadSenseGraph(word)) {
+							unresolved.incrementAndGet();
+						}
+					} catch (final RuntimeException e) {
+						logger.warn("Could not create the SenseGraph for " + word, e);
+						failed.incrementAndGet();
+					}
+					final int count = done.incrementAndGet();
+					final Progress progress = new Progress(total, count, unresolved.get(), failed.get(), Duration.ofNanos(System.nanoTime() - start));
+					if ((count % LOG_EVERY) == 0) {
+						logger.info("Pre-warmed {}", progress);
+					}
+					progressListener.accept(progress);
+				}, workers));
+			}
+			CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0])).join();
+		} finally {
+			workers.shutdown();
+		}
+		awaitBackgroundCompletions();
+
+		final Progress progress = new Progress(total, done.get(), unresolved.get(), failed.get(), Duration.ofNanos(System.nanoTime() - start));
+		logger.info("Finished pre-warming: {}", progress);
+		return progress;
+	}
+
+	private void awaitBackgroundCompletions() {
+		try {
+			if (!core.awaitBackgroundCompletions(core.getBackgroundCompletionTimeout())) {
+				logger.warn("Not all SenseGraphs were completed in the background in time");
+			}
+		} catch (final InterruptedException e) {
+			Thread.currentThread().interrupt();
+			logger.warn("Interrupted while waiting for the background completion of SenseGraphs");
+		}
+	}
+
+	public static void main(String[] args) throws IOException {
+		if (args.length < 1) {
+			System.err.println("Usage: SenseGraphPrewarmer <word list> [queries per second] [parallelism]");
+			System.exit(1);
+		}
+		final List<String> words = Files.readAllLines(Paths.get(args[0]), StandardCharsets.UTF_8).stream().map(String::trim)
+				.filter(word -> !word.isEmpty()).collect(Collectors.toList());
+		final double queriesPerSecond = args.length > 1 ? Double.parseDouble(args[1]) : DEFAULT_QUERIES_PER_SECOND;
+		final int parallelism = args.length > 2 ? Integer.parseInt(args[2]) : DEFAULT_PARALLELISM;
+
+		final CachedResourceConnector connector = new CachedResourceConnector(
+				new RateLimitedResourceConnector(new DBPediaConnector(DBPediaConnector.DEFAULT_SERVICE_URL), queriesPerSecond));
+		try (SenseGraphStore store = new SenseGraphStore()) {
+			final TopicExtractionCore core = new TopicExtractionCore(connector);
+			core.setSenseGraphStore(store);
+			new SenseGraphPrewarmer(core, parallelism).prewarm(words);
+			// detach the store before closing it: completions that did not finish in
+			// time read the store only once they are done and then skip writing
+			core.setBackgroundCompletion(false);
+			core.setSenseGraphStore(null);
+		} finally {
+			connector.flush();
+		}
+	}
+}
@@ -0,0 +1,272 @@
+package edu.kit.ipd.pronat.topic_extraction_common;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.CRC32;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import edu.kit.ipd.parse.luna.tools.ConfigManager;
+import edu.kit.ipd.pronat.topic_extraction_common.graph.TopicGraph;
+import edu.kit.ipd.pronat.topic_extraction_common.graph.TopicGraphCodec;
+
+/**
+ * Persistent store for sense graphs, keyed by the resource URI of the sense.
+ * Survives restarts, so that sense graphs do not have to be crawled again.
+ *
+ * <p>
+ * The graphs are appended to a single data file in the compact format of
+ * {@link TopicGraphCodec}. Each record consists of a header (magic number, key
+ * length, payload length and CRC32 of the payload), the UTF-8 key and the
+ * payload. On opening, only the headers are scanned to build the index; the
+ * graphs are loaded on demand by mapping their records into memory. Storing a
+ * graph for a key again supersedes the older record. A record that was not
+ * written completely (e.g. because of a crash) is cut off when opening. If the
+ * superseded records take up more space than the current ones, the file is
+ * compacted when opening.
+ * </p>
+ *
+ * @author Sebastian Weigelt
+ *
+ */
+public class SenseGraphStore implements Closeable {
+	private static final Logger logger = LoggerFactory.getLogger(SenseGraphStore.class);
+
+	private static final String DEFAULT_PATH = ConfigManager.APP_HOME + File.separator + SenseGraphStore.class.getName();
+	private static final String FILE = "sensegraphs.bin";
+	private static final int MAGIC = 0x53475231;
+	private static final int HEADER_SIZE = 4 * Integer.BYTES;
+
+	private final Path file;
+	private FileChannel channel;
+	private final ConcurrentHashMap<String, Record> index = new ConcurrentHashMap<>();
+	private long size;
+	/** Size of the records superseded by newer records for the same key */
+	private long supersededSize;
+	private volatile boolean closed = false;
+
+	private static final class Record {
+		private final long payloadOffset;
+		private final int payloadLength;
+		private final int checksum;
+
+		private Record(long payloadOffset, int payloadLength, int checksum) {
+			this.payloadOffset = payloadOffset;
+			this.payloadLength = payloadLength;
+			this.checksum = checksum;
+		}
+	}
+
+	/**
+	 * Opens the store in the application directory.
+	 *
+	 * @throws IOException
+	 *             if the store cannot be opened
+	 */
+	public SenseGraphStore() throws IOException {
+		this(Paths.get(DEFAULT_PATH));
+	}
+
+	/**
+	 * Opens (or creates) the store in the given directory.
+	 *
+	 * @param directory
+	 *            the directory of the store
+	 * @throws IOException
+	 *             if the store cannot be opened
+	 */
+	public SenseGraphStore(Path directory) throws IOException {
+		Files.createDirectories(directory);
+		file = directory.resolve(FILE);
+		channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+		size = readIndex();
+		if (size < channel.size()) {
+			logger.warn("Cut off incomplete record at the end of {}", file);
+			channel.truncate(size);
+		}
+		if (supersededSize > (size - supersededSize)) {
+			compact();
+		}
+		logger.debug("Opened sense graph store {} with {} graphs", file, index.size());
+	}
+
+	private long readIndex() throws IOException {
+		final long fileSize = channel.size();
+		final ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+		long position = 0;
+		while ((position + HEADER_SIZE) <= fileSize) {
+			header.clear();
+			channel.read(header, position);
+			header.flip();
+			final int magic = header.getInt();
+			final int keyLength = header.getInt();
+			final int payloadLength = header.getInt();
+			final int checksum = header.getInt();
+			final long end = position + HEADER_SIZE + keyLength + payloadLength;
+			if ((magic != MAGIC) || (keyLength < 0) || (payloadLength < 0) || (end > fileSize)) {
+				break;
+			}
+			final ByteBuffer key = ByteBuffer.allocate(keyLength);
+			channel.read(key, position + HEADER_SIZE);
+			final Record superseded = index.put(new String(key.array(), StandardCharsets.UTF_8), new Record(end - payloadLength, payloadLength, checksum));
+			if (superseded != null) {
+				supersededSize += HEADER_SIZE + keyLength + superseded.payloadLength;
+			}
+			position = end;
+		}
+		return position;
+	}
+
+	/**
+	 * Rewrites the current records to a new data file, which then replaces the
+	 * old one.
+	 */
+	private void compact() throws IOException {
+		final Path compactedFile = file.resolveSibling(FILE + ".tmp");
+		long position = 0;
+		try (FileChannel compacted = FileChannel.open(compactedFile, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+				StandardOpenOption.WRITE)) {
+			for (final String resource : index.keySet()) {
+				final Record record = index.get(resource);
+				final byte[] key = resource.getBytes(StandardCharsets.UTF_8);
+				final ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE + key.length);
+				header.putInt(MAGIC).putInt(key.length).putInt(record.payloadLength).putInt(record.checksum).put(key);
+				header.flip();
+				while (header.hasRemaining()) {
+					compacted.write(header);
+				}
+				long transferred = 0;
+				while (transferred < record.payloadLength) {
+					transferred += channel.transferTo(record.payloadOffset + transferred, record.payloadLength - transferred, compacted);
+				}
+				position += header.limit() + record.payloadLength;
+				index.put(resource, new Record(position - record.payloadLength, record.payloadLength, record.checksum));
+			}
+			compacted.force(false);
+		}
+		channel.close();
+		Files.move(compactedFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE);
+		logger.debug("Compacted {} from {} to {} bytes", file, size, position);
+		size = position;
+		supersededSize = 0;
+	}
+
+	/**
+	 * Loads the sense graph stored for the given resource.
+	 *
+	 * @param resource
+	 *            the resource URI of the sense
+	 * @return the sense graph or <code>null</code>, if there is none (or it
+	 *         cannot be read)
+	 * @throws IllegalStateException
+	 *             if the store is closed
+	 */
+	public TopicGraph get(String resource) {
+		checkOpen();
+		final Record record = index.get(resource);
+		if (record == null) {
+			return null;
+		}
+		try {
+			final MappedByteBuffer payload = channel.map(FileChannel.MapMode.READ_ONLY, record.payloadOffset, record.payloadLength);
+			final CRC32 crc = new CRC32();
+			crc.update(payload.duplicate());
+			if ((int) crc.getValue() != record.checksum) {
+				logger.warn("Stored sense graph for {} is corrupted", resource);
+				return null;
+			}
+			return TopicGraphCodec.decode(payload);
+		} catch (IOException | IllegalArgumentException e) {
+			logger.warn("Could not load stored sense graph for " + resource, e);
+			return null;
+		}
+	}
+
+	/**
+	 * Stores the sense graph for the given resource, superseding a graph stored
+	 * before.
+	 *
+	 * @param resource
+	 *            the resource URI of the sense
+	 * @param graph
+	 *            the sense graph
+	 * @throws IllegalStateException
+	 *             if the store is closed
+	 */
+	public void put(String resource, TopicGraph graph) {
+		final byte[] key = resource.getBytes(StandardCharsets.UTF_8);
+		final byte[] payload = TopicGraphCodec.encode(graph);
+		final CRC32 crc = new CRC32();
+		crc.update(payload);
+		final int checksum = (int) crc.getValue();
+
+		final ByteBuffer record = ByteBuffer.allocate(HEADER_SIZE + key.length + payload.length);
+		record.putInt(MAGIC).putInt(key.length).putInt(payload.length).putInt(checksum).put(key).put(payload);
+		record.flip();
+		synchronized (this) {
+			checkOpen();
+			try {
+				final long position = size;
+				while (record.hasRemaining()) {
+					channel.write(record, position + record.position());
+				}
+				size = position + record.limit();
+				index.put(resource, new Record(size - payload.length, payload.length, checksum));
+			} catch (final IOException e) {
+				logger.warn("Could not store sense graph for " + resource, e);
+			}
+		}
+	}
+
+	private void checkOpen() {
+		if (closed) {
+			throw new IllegalStateException("Sense graph store " + file + " is closed");
+		}
+	}
+
+	public boolean contains(String resource) {
+		return index.containsKey(resource);
+	}
+
+	/**
+	 * @return the number of stored sense graphs
+	 */
+	public int size() {
+		return index.size();
+	}
+
+	/**
+	 * @return the size of the data file in bytes
+	 */
+	public synchronized long getFileSize() {
+		return size;
+	}
+
+	@Override
+	public synchronized void close() throws IOException {
+		if (closed) {
+			return;
+		}
+		closed = true;
+		channel.force(false);
+		channel.close();
+	}
+
+	@Override
+	public String toString() {
+		return "SenseGraphStore [file=" + file + ", graphs=" + size() + "]";
+	}
+}
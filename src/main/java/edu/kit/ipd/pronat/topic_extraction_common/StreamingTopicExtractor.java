@@ -0,0 +1,194 @@
+package edu.kit.ipd.pronat.topic_extraction_common;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import edu.kit.ipd.pronat.topic_extraction_common.graph.TopicGraph;
+
+/**
+ * Extracts topics over a sliding window of a stream of senses (e.g. from
+ * speech input). The window holds at most the last <code>windowSize</code>
+ * senses that are not older than <code>windowDuration</code>. Instead of
+ * creating a new {@link TopicGraph} on every window shift, the graph of the
+ * window is updated in place: the sense graph of a new sense is added and the
+ * sense graphs of expired senses are removed. Listeners are notified whenever
+ * the topics of the window change.
+ *
+ * @author Jan Keim
+ * @author Sebastian Weigelt
+ *
+ */
+public class StreamingTopicExtractor {
+	private static final Logger logger = LoggerFactory.getLogger(StreamingTopicExtractor.class);
+
+	private final TopicExtractionCore core;
+	private final int windowSize;
+	private final long windowMillis;
+
+	private final Deque<WindowEntry> window = new ArrayDeque<>();
+	private final TopicGraph topicGraph = new TopicGraph();
+	private final List<Consumer<List<Topic>>> listeners = new CopyOnWriteArrayList<>();
+	private List<Topic> topics = Collections.emptyList();
+
+	private static final class WindowEntry {
+		private final String sense;
+		/** The inserted sense graph, which is removed again */
+		private final TopicGraph senseGraph;
+		private final long timestamp;
+
+		private WindowEntry(String sense, TopicGraph senseGraph, long timestamp) {
+			this.sense = sense;
+			this.senseGraph = senseGraph;
+			this.timestamp = timestamp;
+		}
+	}
+
+	/**
+	 * Creates a streaming extractor with a window of the last
+	 * <code>windowSize</code> senses.
+	 *
+	 * @param core
+	 *            the core that creates the sense graphs and topics
+	 * @param windowSize
+	 *            maximum number of senses in the window
+	 */
+	public StreamingTopicExtractor(TopicExtractionCore core, int windowSize) {
+		this(core, windowSize, null);
+	}
+
+	/**
+	 * Creates a streaming extractor with a window of the last
+	 * <code>windowSize</code> senses that are at most <code>windowDuration</code>
+	 * old.
+	 *
+	 * @param core
+	 *            the core that creates the sense graphs and topics
+	 * @param windowSize
+	 *            maximum number of senses in the window. If <= 0, the number is
+	 *            not limited
+	 * @param windowDuration
+	 *            maximum age of senses in the window. If <code>null</code>, the
+	 *            age is not limited
+	 */
+	public StreamingTopicExtractor(TopicExtractionCore core, int windowSize, Duration windowDuration) {
+		if ((windowSize <= 0) && (windowDuration == null)) {
+			throw new IllegalArgumentException("The window must be limited by size or duration");
+		}
+		this.core = core;
+		this.windowSize = windowSize <= 0 ? Integer.MAX_VALUE : windowSize;
+		windowMillis = windowDuration == null ? Long.MAX_VALUE : windowDuration.toMillis();
+	}
+
+	/**
+	 * Adds a listener that is notified with the new topics whenever the topics
+	 * of the window change.
+	 *
+	 * @param listener
+	 *            the listener
+	 */
+	public void addTopicListener(Consumer<List<Topic>> listener) {
+		listeners.add(listener);
+	}
+
+	public void removeTopicListener(Consumer<List<Topic>> listener) {
+		listeners.remove(listener);
+	}
+
+	/**
+	 * Adds the next sense of the stream, received now.
+	 *
+	 * @param sense
+	 *            the word sense
+	 * @return the topics of the window
+	 */
+	public List<Topic> addSense(String sense) {
+		return addSense(sense, System.currentTimeMillis());
+	}
+
+	/**
+	 * Adds the next sense of the stream. Senses that fall out of the window
+	 * (because of the size or their age) are removed.
+	 *
+	 * @param sense
+	 *            the word sense
+	 * @param timestamp
+	 *            time the sense was received in milliseconds; must not be before
+	 *            the timestamps of earlier senses
+	 * @return the topics of the window
+	 */
+	public synchronized List<Topic> addSense(String sense, long timestamp) {
+		final TopicGraph senseGraph = core.addSenseToTopicGraph(topicGraph, sense);
+		window.addLast(new WindowEntry(sense, senseGraph, timestamp));
+		while (window.size() > windowSize) {
+			removeOldest();
+		}
+		expireOlderThan(timestamp);
+		return updateTopics();
+	}
+
+	/**
+	 * Removes the senses that are too old at the given time, e.g. when no new
+	 * sense arrived for a while.
+	 *
+	 * @param now
+	 *            the current time in milliseconds
+	 * @return the topics of the window
+	 */
+	public synchronized List<Topic> expire(long now) {
+		expireOlderThan(now);
+		return updateTopics();
+	}
+
+	/**
+	 * @return the topics of the current window
+	 */
+	public synchronized List<Topic> getTopics() {
+		return topics;
+	}
+
+	/**
+	 * @return the senses of the current window, oldest first
+	 */
+	public synchronized List<String> getWindow() {
+		final List<String> senses = new ArrayList<>(window.size());
+		for (final WindowEntry entry : window) {
+			senses.add(entry.sense);
+		}
+		return senses;
+	}
+
+	private void expireOlderThan(long now) {
+		while (!window.isEmpty() && ((now - window.peekFirst().timestamp) > windowMillis)) {
+			removeOldest();
+		}
+	}
+
+	private void removeOldest() {
+		final WindowEntry oldest = window.removeFirst();
+		logger.debug("Sense {} left the window", oldest.sense);
+		topicGraph.removeSenseGraph(oldest.senseGraph);
+	}
+
+	private List<Topic> updateTopics() {
+		List<Topic> newTopics = Collections.emptyList();
+		if (!window.isEmpty() && (topicGraph.getVerticesSize() > 0)) {
+			newTopics = Collections.unmodifiableList(core.getTopicsForTopicGraph(topicGraph, core.getNumTopics()));
+		}
+		if (!newTopics.equals(topics)) {
+			topics = newTopics;
+			for (final Consumer<List<Topic>> listener : listeners) {
+				listener.accept(newTopics);
+			}
+		}
+		return topics;
+	}
+}
@@ -1,26 +1,43 @@
 package edu.kit.ipd.pronat.topic_extraction_common;
 
 import java.time.Duration;
-import java.time.Instant;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
-import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 import edu.kit.ipd.pronat.topic_extraction_common.graph.TopicGraph;
+import edu.kit.ipd.pronat.topic_extraction_common.graph.TopicGraphBuilder;
 import edu.kit.ipd.pronat.topic_extraction_common.graph.WikiVertex;
 import edu.kit.ipd.pronat.topic_extraction_common.ontology.CachedResourceConnector;
 import edu.kit.ipd.pronat.topic_extraction_common.ontology.DBPediaConnector;
+import edu.kit.ipd.pronat.topic_extraction_common.ontology.Deadline;
 import edu.kit.ipd.pronat.topic_extraction_common.ontology.ResourceConnector;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -31,6 +48,11 @@ import edu.kit.ipd.parse.luna.graph.INodeType;
 import edu.kit.ipd.parse.luna.graph.Pair;
 
 /**
+ * Extracts topics for word senses. An instance may be used by multiple threads
+ * concurrently: requests share the (thread-safe) sense graph cache, but all
+ * other state of a request is private to it. Cached sense graphs are never
+ * modified once they are created.
+ *
  * @author Jan Keim
  * @author Sebastian Weigelt
  *
@@ -41,21 +63,58 @@ public class TopicExtractionCore {
 	private static final String TOPIC_ATTRIBUTE = "topic";
 	private static final String TOPICS_NODE_TYPE = "topics";
 
-	private int numTopics = -1;
-	private int maxTopics = 8;
-	private TopicSelectionMethod topicSelectionMethod = TopicSelectionMethod.CombinedConnectivity;
+	private volatile int numTopics = -1;
+	private volatile int maxTopics = 8;
+	private volatile TopicSelectionMethod topicSelectionMethod = TopicSelectionMethod.CombinedConnectivity;
 
 	/**
 	 * Timeouts are handed that 1/5th of the time is allowed for the first hop
 	 */
-	private int timeoutFirstHop = 60 * 1; // 1 Minute
-	private int timeoutSecondHop = 60 * 4; // 4 Minutes
+	private volatile Duration timeoutFirstHop = Duration.ofMinutes(1);
+	private volatile Duration timeoutSecondHop = Duration.ofMinutes(4);
 
 	/** Cache to speed up creating sense graphs */
-	private final HashMap<String, TopicGraph> graphCache;
+	private final SenseGraphCache graphCache;
+
+	/** Optional persistent store of completed sense graphs */
+	private volatile SenseGraphStore graphStore;
 
 	private final ResourceConnector resourceConnector;
 
+	/**
+	 * Whether the sense graphs of the input senses are created concurrently
+	 */
+	private volatile boolean parallelSenseGraphCreation = false;
+	private volatile Executor executor;
+
+	/** Sense graphs that are currently created, to not create them twice */
+	private final ConcurrentHashMap<String, CompletableFuture<TopicGraph>> inFlightSenseGraphs = new ConcurrentHashMap<>();
+
+	/** Maximum number of concurrent lookups during the hops after the first */
+	private volatile int maxSecondHopParallelism = 8;
+
+	/** Depth of the crawl of a sense graph */
+	private volatile int maxHops = 2;
+	/** Number of frontier resources that are looked up together */
+	private volatile int frontierBatchSize = 10;
+	/** Budgets for the size of a sense graph */
+	private volatile int maxVerticesPerSenseGraph = Integer.MAX_VALUE;
+	private volatile int maxEdgesPerSenseGraph = Integer.MAX_VALUE;
+
+	/** Pruning of vertices with many related resources */
+	private volatile int maxFanOut = Integer.MAX_VALUE;
+	private volatile int hubDegreeThreshold = Integer.MAX_VALUE;
+	private volatile int hubFanOut = 0;
+	/** Resources that turned out to be hubs, with their number of related resources */
+	private final ConcurrentHashMap<String, Integer> knownHubs = new ConcurrentHashMap<>();
+	private static final int MAX_KNOWN_HUBS = 100_000;
+
+	/** Whether sense graphs that hit a timeout are completed in the background */
+	private volatile boolean backgroundCompletion = true;
+	private volatile Duration backgroundCompletionTimeout = Duration.ofMinutes(10);
+	/** Sense graphs that are currently completed in the background */
+	private final ConcurrentHashMap<String, CompletableFuture<Void>> completingSenseGraphs = new ConcurrentHashMap<>();
+
 	public TopicExtractionCore() {
 		this(DBPediaConnector.DEFAULT_SERVICE_URL);
 	}
@@ -65,7 +124,12 @@ public class TopicExtractionCore {
 	}
 
 	public TopicExtractionCore(ResourceConnector ressourceConnector) {
-		graphCache = new HashMap<>();
+		this(ressourceConnector, new SenseGraphCache());
+	}
+
+	public TopicExtractionCore(ResourceConnector ressourceConnector, SenseGraphCache senseGraphCache) {
+		graphCache = Objects.requireNonNull(senseGraphCache);
+		executor = createDefaultExecutor();
 		numTopics = -1;
 		resourceConnector = ressourceConnector;
 	}
@@ -77,7 +141,7 @@ public class TopicExtractionCore {
 	 * @return the timeout.
 	 */
 	public int getTimeout() {
-		return timeoutSecondHop;
+		return (int) timeoutSecondHop.getSeconds();
 	}
 
 	/**
@@ -88,10 +152,107 @@ public class TopicExtractionCore {
 	 *            the timeout to set
 	 */
 	public void setTimeout(int timeout) {
-		timeoutFirstHop = timeout / 4;
+		setTimeout(Duration.ofSeconds(timeout));
+	}
+
+	/**
+	 * Sets the timeout (for creating the sense graphs). Note, that for the first
+	 * hop the maximum allowed time will be one quarter of the overall timeout
+	 *
+	 * @param timeout
+	 *            the timeout to set
+	 */
+	public void setTimeout(Duration timeout) {
+		timeoutFirstHop = timeout.dividedBy(4);
 		timeoutSecondHop = timeout;
 	}
 
+	/**
+	 * Sets whether the creation of sense graphs that hit a timeout is finished in
+	 * the background. The caller gets the partial sense graph (see
+	 * {@link TopicGraph#isPartial()}) immediately; once the background creation
+	 * succeeds, the complete sense graph replaces the partial one in the cache.
+	 *
+	 * @param backgroundCompletion
+	 *            <code>true</code> to complete partial sense graphs in the
+	 *            background
+	 */
+	public void setBackgroundCompletion(boolean backgroundCompletion) {
+		this.backgroundCompletion = backgroundCompletion;
+	}
+
+	public boolean isBackgroundCompletion() {
+		return backgroundCompletion;
+	}
+
+	/**
+	 * Sets the timeout for completing a sense graph in the background. As for
+	 * {@link #setTimeout(Duration)}, the first hop may take one quarter of it.
+	 *
+	 * @param timeout
+	 *            the timeout to set
+	 */
+	public void setBackgroundCompletionTimeout(Duration timeout) {
+		backgroundCompletionTimeout = Objects.requireNonNull(timeout);
+	}
+
+	public Duration getBackgroundCompletionTimeout() {
+		return backgroundCompletionTimeout;
+	}
+
+	/**
+	 * Waits until no sense graph is completed in the background anymore, e.g.
+	 * before closing the {@link SenseGraphStore}.
+	 *
+	 * @param timeout
+	 *            how long to wait at most
+	 * @return <code>true</code> if all background completions finished in time
+	 * @throws InterruptedException
+	 *             if interrupted while waiting
+	 */
+	public boolean awaitBackgroundCompletions(Duration timeout) throws InterruptedException {
+		final Deadline deadline = Deadline.after(timeout);
+		// completions may schedule further completions while we wait
+		while (!completingSenseGraphs.isEmpty()) {
+			final CompletableFuture<?>[] completions = completingSenseGraphs.values().toArray(new CompletableFuture<?>[0]);
+			try {
+				CompletableFuture.allOf(completions).get(deadline.remainingMillis(Long.MAX_VALUE), TimeUnit.MILLISECONDS);
+			} catch (final TimeoutException e) {
+				return false;
+			} catch (final ExecutionException e) {
+				// completions always finish normally
+				throw new IllegalStateException(e.getCause());
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Returns the cache for sense graphs, e.g. to monitor its hit, miss and
+	 * eviction counts.
+	 *
+	 * @return the sense graph cache
+	 */
+	public SenseGraphCache getSenseGraphCache() {
+		return graphCache;
+	}
+
+	/**
+	 * Sets the persistent store for sense graphs. Completely created sense graphs
+	 * are written to the store and sense graphs that are not cached in memory
+	 * are loaded from it before crawling them again.
+	 *
+	 * @param senseGraphStore
+	 *            the store or <code>null</code> to not use a store
+	 */
+	public void setSenseGraphStore(SenseGraphStore senseGraphStore) {
+		graphStore = senseGraphStore;
+	}
+
+	public SenseGraphStore getSenseGraphStore() {
+		return graphStore;
+	}
+
 	/**
 	 * Sets the number of topics allowed. If a negative number is set, the algorithm
 	 * will decide a proper ammount of topics
@@ -103,6 +264,10 @@ public class TopicExtractionCore {
 		numTopics = n;
 	}
 
+	public int getNumTopics() {
+		return numTopics;
+	}
+
 	/**
 	 * Sets the maximum number of topics allowed.
 	 *
@@ -116,6 +281,200 @@ public class TopicExtractionCore {
 		this.maxTopics = maxTopics;
 	}
 
+	/**
+	 * Sets whether the sense graphs for the input senses are created in parallel
+	 * (using the {@link Executor} of this instance) or one after another. The
+	 * resulting {@link TopicGraph} is the same in both modes.
+	 *
+	 * @param parallel
+	 *            <code>true</code> to create the sense graphs in parallel
+	 */
+	public void setParallelSenseGraphCreation(boolean parallel) {
+		parallelSenseGraphCreation = parallel;
+	}
+
+	public boolean isParallelSenseGraphCreation() {
+		return parallelSenseGraphCreation;
+	}
+
+	/**
+	 * Sets the maximum number of concurrent lookups of related resources during
+	 * the hops after the first one of the creation of a sense graph. Every lookup
+	 * covers a batch of frontier resources (see
+	 * {@link #setFrontierBatchSize(int)}). A value of 1 looks up one batch after
+	 * another.
+	 *
+	 * @param maxParallelism
+	 *            maximum number of concurrent lookups. Must be >0
+	 */
+	public void setMaxSecondHopParallelism(int maxParallelism) {
+		if (maxParallelism < 1) {
+			throw new IllegalArgumentException("Tried to set an invalid maximum parallelism. Must be >0");
+		}
+		maxSecondHopParallelism = maxParallelism;
+	}
+
+	public int getMaxSecondHopParallelism() {
+		return maxSecondHopParallelism;
+	}
+
+	/**
+	 * Sets the depth of the breadth-first crawl of a sense graph, e.g. 1 for low
+	 * latency or 3 for a higher recall. The default is 2. Sense graphs that were
+	 * cached before are not affected.
+	 *
+	 * @param maxHops
+	 *            the number of hops. Must be >0
+	 */
+	public void setMaxHops(int maxHops) {
+		if (maxHops < 1) {
+			throw new IllegalArgumentException("Tried to set an invalid number of hops. Must be >0");
+		}
+		this.maxHops = maxHops;
+	}
+
+	public int getMaxHops() {
+		return maxHops;
+	}
+
+	/**
+	 * Sets how many resources of a frontier of the crawl are looked up together
+	 * (see {@link ResourceConnector#getRelatedForAll(Collection, Deadline)}).
+	 *
+	 * @param batchSize
+	 *            the batch size. Must be >0
+	 */
+	public void setFrontierBatchSize(int batchSize) {
+		if (batchSize < 1) {
+			throw new IllegalArgumentException("Tried to set an invalid batch size. Must be >0");
+		}
+		frontierBatchSize = batchSize;
+	}
+
+	public int getFrontierBatchSize() {
+		return frontierBatchSize;
+	}
+
+	/**
+	 * Sets the budget for the size of a sense graph. Once a budget is used up,
+	 * the crawl adds no further vertices (or edges). Sense graphs that were cut
+	 * by a budget are complete, not partial.
+	 *
+	 * @param maxVertices
+	 *            maximum number of vertices of a sense graph. Must be >0
+	 * @param maxEdges
+	 *            maximum number of edges of a sense graph. Must be >=0
+	 */
+	public void setSenseGraphBudget(int maxVertices, int maxEdges) {
+		if ((maxVertices < 1) || (maxEdges < 0)) {
+			throw new IllegalArgumentException("Tried to set an invalid sense graph budget");
+		}
+		maxVerticesPerSenseGraph = maxVertices;
+		maxEdgesPerSenseGraph = maxEdges;
+	}
+
+	public int getMaxVerticesPerSenseGraph() {
+		return maxVerticesPerSenseGraph;
+	}
+
+	public int getMaxEdgesPerSenseGraph() {
+		return maxEdgesPerSenseGraph;
+	}
+
+	/**
+	 * Sets the maximum number of related resources that are added for a single
+	 * vertex while crawling. If a vertex has more, a deterministic sample is
+	 * added and the rest is recorded as pruned (see
+	 * {@link TopicGraph#getPrunedRelated()}).
+	 *
+	 * @param maxFanOut
+	 *            maximum fan-out per vertex. Must be >0
+	 */
+	public void setMaxFanOut(int maxFanOut) {
+		if (maxFanOut < 1) {
+			throw new IllegalArgumentException("Tried to set an invalid maximum fan-out. Must be >0");
+		}
+		this.maxFanOut = maxFanOut;
+	}
+
+	public int getMaxFanOut() {
+		return maxFanOut;
+	}
+
+	/**
+	 * Sets up the pruning of hubs, i.e. vertices beyond the first hop (mostly
+	 * broad categories and types) with more than <code>degreeThreshold</code>
+	 * related resources. Only a sample of <code>hubFanOut</code> related
+	 * resources of a hub is added. With a fan-out of 0, hubs are not expanded at
+	 * all; resources that are known to be hubs from earlier crawls are then not
+	 * even looked up.
+	 *
+	 * @param degreeThreshold
+	 *            number of related resources from which on a vertex is a hub.
+	 *            Must be >0
+	 * @param hubFanOut
+	 *            number of related resources that are added for a hub. Must be
+	 *            >=0
+	 */
+	public void setHubPruning(int degreeThreshold, int hubFanOut) {
+		if ((degreeThreshold < 1) || (hubFanOut < 0)) {
+			throw new IllegalArgumentException("Tried to set an invalid hub pruning");
+		}
+		hubDegreeThreshold = degreeThreshold;
+		this.hubFanOut = hubFanOut;
+	}
+
+	public int getHubDegreeThreshold() {
+		return hubDegreeThreshold;
+	}
+
+	public int getHubFanOut() {
+		return hubFanOut;
+	}
+
+	/**
+	 * Returns the resources that turned out to be hubs while crawling, with their
+	 * number of related resources.
+	 *
+	 * @return the known hubs
+	 */
+	public Map<String, Integer> getKnownHubs() {
+		return Collections.unmodifiableMap(knownHubs);
+	}
+
+	/**
+	 * Sets the {@link Executor} that is used to create sense graphs and to look up
+	 * the second hop in parallel. If none is set, a default executor is used that
+	 * runs every task on its own virtual thread (or on a cached pool of daemon
+	 * threads, if the runtime does not support virtual threads). As sense graph
+	 * creation waits for its second hop lookups, a bounded executor must provide
+	 * enough threads for both.
+	 *
+	 * @param executor
+	 *            the executor to use
+	 */
+	public void setExecutor(Executor executor) {
+		this.executor = Objects.requireNonNull(executor);
+	}
+
+	public Executor getExecutor() {
+		return executor;
+	}
+
+	private static ExecutorService createDefaultExecutor() {
+		try {
+			// virtual threads are only available on newer runtimes
+			return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+		} catch (final ReflectiveOperationException e) {
+			logger.debug("Virtual threads are not supported, falling back to a cached thread pool");
+			return Executors.newCachedThreadPool(runnable -> {
+				final Thread thread = new Thread(runnable, "sense-graph-creation");
+				thread.setDaemon(true);
+				return thread;
+			});
+		}
+	}
+
 	public void setTopicSelectionMethod(TopicSelectionMethod tsm) {
 		topicSelectionMethod = tsm;
 	}
@@ -247,11 +606,143 @@ public class TopicExtractionCore {
 	 *            itself.
 	 * @return List of {@link Topic}s
 	 */
-	public synchronized List<Topic> getTopicsForSenses(Collection<String> wordSenses, int amountOfTopics) {
-		final TopicGraph topicGraph = getTopicGraphForSenses(wordSenses);
+	public List<Topic> getTopicsForSenses(Collection<String> wordSenses, int amountOfTopics) {
+		return getTopicsForSenses(wordSenses, amountOfTopics, Deadline.none());
+	}
+
+	/**
+	 * Creates a list of {@link Topic}s for the input senses within the given
+	 * deadline. Sense graphs that cannot be completed in time are used as far as
+	 * they were created.
+	 *
+	 * @param wordSenses
+	 *            Collection of input word senses
+	 * @param amountOfTopics
+	 *            Amount of topics you want. If <= 0, the method selects the amount
+	 *            itself.
+	 * @param deadline
+	 *            deadline of the request
+	 * @return List of {@link Topic}s
+	 */
+	public List<Topic> getTopicsForSenses(Collection<String> wordSenses, int amountOfTopics, Deadline deadline) {
+		final TopicGraph topicGraph = getTopicGraphForSenses(wordSenses, deadline);
 		return getTopicsForTopicGraph(topicGraph, amountOfTopics);
 	}
 
+	/**
+	 * Asynchronously creates a list of {@link Topic}s for the input senses on the
+	 * {@link Executor} of this instance. The methods determines the amount of
+	 * topics itself.
+	 *
+	 * @param wordSenses
+	 *            Collection of input senses
+	 * @return future of the list of {@link Topic}s
+	 * @see #getTopicsForSensesAsync(Collection, int, Executor)
+	 */
+	public CompletableFuture<List<Topic>> getTopicsForSensesAsync(Collection<String> wordSenses) {
+		return getTopicsForSensesAsync(wordSenses, numTopics, executor);
+	}
+
+	/**
+	 * Asynchronously creates a list of {@link Topic}s for the input senses on the
+	 * provided {@link Executor}. Cancelling the returned future with
+	 * <code>mayInterruptIfRunning</code> interrupts the extraction; sense graphs
+	 * that are already being created in parallel are still finished and cached.
+	 *
+	 * @param wordSenses
+	 *            Collection of input word senses
+	 * @param amountOfTopics
+	 *            Amount of topics you want. If <= 0, the method selects the amount
+	 *            itself.
+	 * @param executor
+	 *            the executor to run the extraction on
+	 * @return future of the list of {@link Topic}s
+	 */
+	public CompletableFuture<List<Topic>> getTopicsForSensesAsync(Collection<String> wordSenses, int amountOfTopics, Executor executor) {
+		final List<String> senses = new ArrayList<>(wordSenses);
+		return supplyCancellableAsync(() -> getTopicsForSenses(senses, amountOfTopics), executor);
+	}
+
+	/**
+	 * Asynchronously creates a {@link TopicGraph} for the input senses on the
+	 * {@link Executor} of this instance.
+	 *
+	 * @param wordSenses
+	 *            Collection of input word senses
+	 * @return future of the {@link TopicGraph} for the word senses
+	 * @see #getTopicGraphForSensesAsync(Collection, Executor)
+	 */
+	public CompletableFuture<TopicGraph> getTopicGraphForSensesAsync(Collection<String> wordSenses) {
+		return getTopicGraphForSensesAsync(wordSenses, executor);
+	}
+
+	/**
+	 * Asynchronously creates a {@link TopicGraph} for the input senses on the
+	 * provided {@link Executor}. Cancelling the returned future with
+	 * <code>mayInterruptIfRunning</code> interrupts the creation.
+	 *
+	 * @param wordSenses
+	 *            Collection of input word senses
+	 * @param executor
+	 *            the executor to run the creation on
+	 * @return future of the {@link TopicGraph} for the word senses
+	 */
+	public CompletableFuture<TopicGraph> getTopicGraphForSensesAsync(Collection<String> wordSenses, Executor executor) {
+		final List<String> senses = new ArrayList<>(wordSenses);
+		return supplyCancellableAsync(() -> getTopicGraphForSenses(senses), executor);
+	}
+
+	/**
+	 * Like {@link CompletableFuture#supplyAsync(Supplier, Executor)}, but
+	 * cancelling the returned future interrupts the thread running the supplier.
+	 */
+	private static <T> CompletableFuture<T> supplyCancellableAsync(Supplier<T> supplier, Executor executor) {
+		final AtomicReference<Thread> runner = new AtomicReference<>();
+		final CompletableFuture<T> future = new CompletableFuture<T>() {
+			@Override
+			public boolean cancel(boolean mayInterruptIfRunning) {
+				final boolean cancelled = super.cancel(mayInterruptIfRunning);
+				if (cancelled && mayInterruptIfRunning) {
+					synchronized (runner) {
+						final Thread thread = runner.get();
+						if (thread != null) {
+							thread.interrupt();
+						}
+					}
+				}
+				return cancelled;
+			}
+		};
+		executor.execute(() -> {
+			// publish the runner before checking for cancellation, so that a cancel
+			// either sees the runner or is seen here
+			synchronized (runner) {
+				runner.set(Thread.currentThread());
+			}
+			if (future.isDone()) {
+				synchronized (runner) {
+					runner.set(null);
+				}
+				Thread.interrupted();
+				return;
+			}
+			try {
+				future.complete(supplier.get());
+			} catch (final Throwable t) {
+				future.completeExceptionally(t);
+			} finally {
+				synchronized (runner) {
+					runner.set(null);
+				}
+				if (future.isCancelled()) {
+					// do not leak the interrupt to the next task of the executor
+					Thread.interrupted();
+				}
+			}
+		});
+		return future;
+	}
+
 	/**
 	 * Creates a {@link TopicGraph} for the input senses.
 	 *
@@ -259,21 +750,118 @@ public class TopicExtractionCore {
 	 *            Collection of input word senses
 	 * @return a {@link TopicGraph} for the word senses
 	 */
-	public synchronized TopicGraph getTopicGraphForSenses(Collection<String> wordSenses) {
-		final List<TopicGraph> senseGraphs = new ArrayList<>();
+	public TopicGraph getTopicGraphForSenses(Collection<String> wordSenses) {
+		return getTopicGraphForSenses(wordSenses, Deadline.none());
+	}
+
+	/**
+	 * Creates a {@link TopicGraph} for the input senses within the given
+	 * deadline. The deadline is checked while crawling and passed on to the
+	 * {@link ResourceConnector}, so that outstanding queries are stopped once it
+	 * expires. Sense graphs that were cut short by the deadline are not cached.
+	 *
+	 * @param wordSenses
+	 *            Collection of input word senses
+	 * @param deadline
+	 *            deadline of the request
+	 * @return a {@link TopicGraph} for the word senses
+	 */
+	public TopicGraph getTopicGraphForSenses(Collection<String> wordSenses, Deadline deadline) {
 		// create Topic Graph
 		if (logger.isDebugEnabled()) {
 			final String senses = String.join(", ", wordSenses);
 			logger.debug("Start creating Graphs for {}", senses);
 		}
 
-		for (final String sense : wordSenses) {
-			final TopicGraph senseGraph = createSenseGraphFor(sense);
-			final boolean senseGraphExistsAlready = checkIfSenseGraphExistsAlready(senseGraphs, senseGraph);
-			if (!senseGraphExistsAlready) {
-				senseGraphs.add(senseGraph);
-			}
+		return mergeSenseGraphs(createSenseGraphsFor(wordSenses, parallelSenseGraphCreation, deadline));
+	}
+
+	/**
+	 * Creates lists of {@link Topic}s for many collections of input senses (e.g.
+	 * one per document). The methods determines the amount of topics itself.
+	 *
+	 * @param documentsSenses
+	 *            Collections of input word senses, one per document
+	 * @return Lists of {@link Topic}s in the same order as the input
+	 * @see #getTopicsForSensesBatch(List, int)
+	 */
+	public List<List<Topic>> getTopicsForSensesBatch(List<? extends Collection<String>> documentsSenses) {
+		return getTopicsForSensesBatch(documentsSenses, numTopics);
+	}
+
+	/**
+	 * Creates lists of {@link Topic}s for many collections of input senses (e.g.
+	 * one per document). The sense graph of every distinct sense is created only
+	 * once for the whole batch (in parallel), afterwards the topic graphs and
+	 * topics of the documents are computed in parallel.
+	 *
+	 * @param documentsSenses
+	 *            Collections of input word senses, one per document
+	 * @param amountOfTopics
+	 *            Amount of topics you want per document. If <= 0, the method
+	 *            selects the amount itself.
+	 * @return Lists of {@link Topic}s in the same order as the input
+	 */
+	public List<List<Topic>> getTopicsForSensesBatch(List<? extends Collection<String>> documentsSenses, int amountOfTopics) {
+		final Set<String> distinctSenses = new LinkedHashSet<>();
+		documentsSenses.forEach(distinctSenses::addAll);
+		logger.debug("Start creating Graphs for {} distinct senses of {} documents", distinctSenses.size(), documentsSenses.size());
+
+		final Map<String, TopicGraph> senseToGraph = new HashMap<>();
+		final Iterator<TopicGraph> senseGraphs = createSenseGraphsFor(distinctSenses, true, Deadline.none()).iterator();
+		for (final String sense : distinctSenses) {
+			senseToGraph.put(sense, senseGraphs.next());
+		}
+
+		final List<CompletableFuture<List<Topic>>> futures = new ArrayList<>(documentsSenses.size());
+		for (final Collection<String> documentSenses : documentsSenses) {
+			futures.add(CompletableFuture.supplyAsync(() -> {
+				final List<TopicGraph> documentSenseGraphs = documentSenses.stream().map(senseToGraph::get).collect(Collectors.toList());
+				return getTopicsForTopicGraph(mergeSenseGraphs(documentSenseGraphs), amountOfTopics);
+			}, executor));
 		}
+		final List<List<Topic>> topics = new ArrayList<>(futures.size());
+		for (final CompletableFuture<List<Topic>> future : futures) {
+			topics.add(awaitResult(future));
+		}
+		return topics;
+	}
+
+	/**
+	 * Creates the sense graph for the given word sense (if it is neither cached
+	 * nor stored yet), so that later requests do not have to crawl it.
+	 *
+	 * @param wordSense
+	 *            the word sense
+	 * @return whether the word sense could be resolved to a resource
+	 */
+	public boolean preloadSenseGraph(String wordSense) {
+		return !createSenseGraphFor(wordSense, Deadline.none()).getSenses().isEmpty();
+	}
+
+	/**
+	 * Adds the sense graph of the given sense to an existing {@link TopicGraph}
+	 * in place, e.g. when a new word arrives. The graph is not rebuilt and the
+	 * next ranking starts from the previous centrality scores.
+	 *
+	 * @param topicGraph
+	 *            the topic graph to update
+	 * @param wordSense
+	 *            the word sense to add
+	 * @return the inserted sense graph, to remove it later with
+	 *         {@link TopicGraph#removeSenseGraph(TopicGraph)}
+	 */
+	public TopicGraph addSenseToTopicGraph(TopicGraph topicGraph, String wordSense) {
+		final TopicGraph senseGraph = createSenseGraphFor(wordSense, Deadline.none());
+		topicGraph.insertSenseGraph(senseGraph);
+		return senseGraph;
+	}
+
+	/**
+	 * Merges the sense graphs (in the given order) into a {@link TopicGraph}.
+	 * Sense graphs that occur repeatedly are added once with increased weights.
+	 */
+	private TopicGraph mergeSenseGraphs(List<TopicGraph> senseGraphs) {
 		final TopicGraph topicGraph = TopicGraph.createTopicGraph(senseGraphs);
 		if (logger.isDebugEnabled()) {
 			logger.debug("Graph has {} nodes and {} vertices", topicGraph.getVerticesSize(), topicGraph.getEdgesSize());
@@ -281,14 +869,48 @@ public class TopicExtractionCore {
 		return topicGraph;
 	}
 
-	private boolean checkIfSenseGraphExistsAlready(final List<TopicGraph> senseGraphs, final TopicGraph senseGraph) {
-		for (final TopicGraph existingSenseGraph : senseGraphs) {
-			if (existingSenseGraph.equals(senseGraph)) {
-				existingSenseGraph.increaseWeights();
-				return true;
+	/**
+	 * Creates the sense graphs for the given senses. The returned list has the
+	 * same order as the input, so merging the graphs yields the same result in
+	 * sequential and in parallel mode.
+	 */
+	private List<TopicGraph> createSenseGraphsFor(Collection<String> wordSenses, boolean parallel, Deadline deadline) {
+		final List<TopicGraph> senseGraphs = new ArrayList<>(wordSenses.size());
+		if (!parallel || (wordSenses.size() < 2)) {
+			for (final String sense : wordSenses) {
+				senseGraphs.add(createSenseGraphFor(sense, deadline));
+			}
+			return senseGraphs;
+		}
+
+		final Executor exec = executor;
+		final List<CompletableFuture<TopicGraph>> futures = new ArrayList<>(wordSenses.size());
+		for (final String sense : wordSenses) {
+			futures.add(CompletableFuture.supplyAsync(() -> createSenseGraphFor(sense, deadline), exec));
+		}
+		for (final CompletableFuture<TopicGraph> future : futures) {
+			senseGraphs.add(awaitResult(future));
+		}
+		return senseGraphs;
+	}
+
+	/**
+	 * Waits for a task that was started by this request. Tasks that are still
+	 * running when the request is interrupted are not stopped, e.g. their sense
+	 * graphs still end up in the cache.
+	 */
+	private static <T> T awaitResult(CompletableFuture<T> future) {
+		try {
+			return future.get();
+		} catch (final InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new CancellationException("Interrupted while waiting for a result");
+		} catch (final ExecutionException e) {
+			if (e.getCause() instanceof RuntimeException) {
+				throw (RuntimeException) e.getCause();
 			}
+			throw new IllegalStateException(e.getCause());
 		}
-		return false;
 	}
 
 	/**
@@ -301,8 +923,9 @@ public class TopicExtractionCore {
 	 *            itself.
 	 * @return List of {@link Topic}s
 	 */
-	public synchronized List<Topic> getTopicsForTopicGraph(TopicGraph topicGraph, int amountOfTopics) {
-		final List<VertexScoreTuple> verticesWithScores = getVerticesSortedByCentralityScore(topicGraph);
+	public List<Topic> getTopicsForTopicGraph(TopicGraph topicGraph, int amountOfTopics) {
+		// ranked lazily, the processors usually only need the best vertices
+		final List<VertexScoreTuple> verticesWithScores = new RankedVertexScores(topicGraph.getCentralityScores());
 
 		if (amountOfTopics <= 0) {
 			amountOfTopics = 2 * topicGraph.getSenses().size();
@@ -341,96 +964,368 @@ public class TopicExtractionCore {
 		return topicList;
 	}
 
-	private TopicGraph createSenseGraphFor(String word) {
+	private TopicGraph createSenseGraphFor(String word, Deadline deadline) {
 		logger.debug("Creating SenseGraph for {}", word);
 		final TopicGraph retGraph = new TopicGraph();
-		final Optional<String> optWordDBResource = resourceConnector.getResourceStringFor(word);
+		final Optional<String> optWordDBResource = resourceConnector.getResourceStringFor(word, deadline);
 		if (!optWordDBResource.isPresent()) {
 			return retGraph;
 		}
 		// get the main meaning
 		final String wordDBResource = optWordDBResource.get();
 		final String wordFromResource = createLabelFromResource(wordDBResource);
-		if (graphCache.containsKey(wordFromResource)) {
-			return graphCache.get(wordFromResource);
+		while (true) {
+			final TopicGraph cachedGraph = graphCache.get(wordFromResource);
+			if (cachedGraph != null) {
+				if (cachedGraph.isPartial()) {
+					// e.g. a former background completion failed, so try again
+					scheduleCompletion(word, wordDBResource, wordFromResource);
+				}
+				return cachedGraph;
+			}
+
+			// if the sense graph is already being created, wait for that instead of
+			// crawling again
+			final CompletableFuture<TopicGraph> ownBuild = new CompletableFuture<>();
+			final CompletableFuture<TopicGraph> runningBuild = inFlightSenseGraphs.putIfAbsent(wordFromResource, ownBuild);
+			if (runningBuild != null) {
+				logger.debug("Waiting for running creation of the SenseGraph for {}", word);
+				final Optional<TopicGraph> senseGraph = awaitSenseGraph(runningBuild, deadline);
+				if (senseGraph == null) {
+					// ran out of time
+					final TopicGraph initialGraph = createInitialSenseGraph(wordDBResource, wordFromResource);
+					initialGraph.setPartial(true);
+					return initialGraph;
+				}
+				if (senseGraph.isPresent() && (!senseGraph.get().isPartial() || deadline.isExpired())) {
+					return senseGraph.get();
+				}
+				// the running creation was cancelled or cut short by its own deadline, so
+				// try again (the cache or our own crawl); it may not be deregistered yet
+				inFlightSenseGraphs.remove(wordFromResource, runningBuild);
+				continue;
+			}
+			try {
+				// the running creation might have finished right before we registered ours
+				TopicGraph senseGraph = graphCache.peek(wordFromResource);
+				if (senseGraph == null) {
+					senseGraph = loadStoredSenseGraph(wordDBResource, wordFromResource);
+				}
+				if (senseGraph == null) {
+					senseGraph = buildSenseGraph(word, wordDBResource, wordFromResource, deadline, timeoutFirstHop, timeoutSecondHop, false);
+				}
+				ownBuild.complete(senseGraph);
+				return senseGraph;
+			} catch (final RuntimeException e) {
+				ownBuild.completeExceptionally(e);
+				throw e;
+			} finally {
+				inFlightSenseGraphs.remove(wordFromResource, ownBuild);
+			}
+		}
+	}
+
+	/**
+	 * Waits (at most until the deadline) for the creation of a sense graph that
+	 * was started by another request.
+	 *
+	 * @return the sense graph, an empty {@link Optional} if the other request was
+	 *         cancelled, or <code>null</code> if the deadline expired
+	 */
+	private static Optional<TopicGraph> awaitSenseGraph(CompletableFuture<TopicGraph> build, Deadline deadline) {
+		try {
+			return Optional.of(build.get(deadline.remainingMillis(Long.MAX_VALUE), TimeUnit.MILLISECONDS));
+		} catch (final TimeoutException e) {
+			return null;
+		} catch (final InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new CancellationException("Interrupted while waiting for a sense graph");
+		} catch (final ExecutionException e) {
+			if (e.getCause() instanceof CancellationException) {
+				return Optional.empty();
+			}
+			if (e.getCause() instanceof RuntimeException) {
+				throw (RuntimeException) e.getCause();
+			}
+			throw new IllegalStateException(e.getCause());
+		}
+	}
+
+	private TopicGraph loadStoredSenseGraph(String wordDBResource, String wordFromResource) {
+		final SenseGraphStore store = graphStore;
+		if (store == null) {
+			return null;
 		}
+		final TopicGraph senseGraph = store.get(wordDBResource);
+		if (senseGraph != null) {
+			logger.debug("Loaded stored SenseGraph for {}", wordFromResource);
+			graphCache.put(wordFromResource, senseGraph);
+		}
+		return senseGraph;
+	}
 
-		final WikiVertex mainVertex = new WikiVertex(wordFromResource, wordDBResource);
+	private static TopicGraph createInitialSenseGraph(String wordDBResource, String wordFromResource) {
+		final TopicGraph retGraph = new TopicGraph();
+		final WikiVertex mainVertex = WikiVertex.of(wordFromResource, wordDBResource);
 		retGraph.addVertex(mainVertex);
 		retGraph.addSense(mainVertex);
+		return retGraph;
+	}
+
+	/**
+	 * Crawls the sense graph. Graphs that hit a timeout are marked as partial
+	 * and (unless this is the background completion itself) completed in the
+	 * background.
+	 */
+	private TopicGraph buildSenseGraph(String word, String wordDBResource, String wordFromResource, Deadline requestDeadline,
+			Duration firstHopTimeout, Duration secondHopTimeout, boolean background) {
+		final int maxVertices = maxVerticesPerSenseGraph;
+		final int maxEdges = maxEdgesPerSenseGraph;
+		// the lookups of the crawl insert into the builder concurrently
+		final TopicGraphBuilder builder = new TopicGraphBuilder(maxVertices, maxEdges);
+		final WikiVertex mainVertex = WikiVertex.of(wordFromResource, wordDBResource);
+		builder.addVertex(mainVertex);
+		builder.addSense(mainVertex);
 
-		// start a timer to be able to trigger a timeout
-		final Instant start = Instant.now();
+		// the configured timeouts and the deadline of the request, whichever comes first
+		final Deadline timeout = Deadline.after(secondHopTimeout);
+		final Deadline firstHopDeadline = requestDeadline.earliest(Deadline.after(firstHopTimeout));
+		final Deadline secondHopDeadline = requestDeadline.earliest(timeout);
+		// graphs cut short by the deadline of a request are not cached
+		final boolean cacheIfCut = !requestDeadline.isBefore(timeout);
 
 		// get hops, add wikiPageRedirects to first hop and add real first hop
-		final Set<String> firstHopSet = resourceConnector.getEquivalentResources(wordDBResource);
-		firstHopSet.addAll(resourceConnector.getRelatedFor(wordDBResource));
-		// first add all first hops; save a map with url to vertex
-		final Map<String, WikiVertex> urlToVertex = new HashMap<>();
-		for (final String url : firstHopSet) {
+		// copy, as the connector may hand out its (cached) instance
+		final Set<String> firstHopSet = new HashSet<>(resourceConnector.getEquivalentResources(wordDBResource, firstHopDeadline));
+		firstHopSet.addAll(resourceConnector.getRelatedFor(wordDBResource, firstHopDeadline));
+		if (Thread.currentThread().isInterrupted()) {
+			// the request was cancelled during the lookup
+			throw new CancellationException("Interrupted while creating a sense graph");
+		}
+		final Set<String> firstHop = pruneRelated(builder, mainVertex, firstHopSet, maxFanOut);
+		// first add all first hops (within the budget); save a map with url to vertex
+		Map<String, WikiVertex> frontier = new HashMap<>();
+		for (final String url : firstHop) {
+			if (firstHopDeadline.isExpired()) {
+				return handleTimeout(word, wordDBResource, wordFromResource, builder.build(), cacheIfCut, background);
+			}
 			final String name = createLabelFromResource(url);
-			final WikiVertex vertex = new WikiVertex(name, url);
-			retGraph.addVertex(vertex);
-			retGraph.addEdge(mainVertex, vertex);
-			urlToVertex.put(url, vertex);
+			final WikiVertex vertex = WikiVertex.of(name, url);
+			if (builder.isEdgeBudgetExhausted() || (!builder.containsVertex(vertex) && !builder.addVertex(vertex))) {
+				continue;
+			}
+			builder.addEdge(mainVertex, vertex);
+			frontier.put(url, vertex);
 		}
 
 		// check for timeout now
-		if (Duration.between(start, Instant.now()).getSeconds() > timeoutFirstHop) {
-			return handleTimeout(wordFromResource, retGraph, word);
+		if (firstHopDeadline.isExpired()) {
+			return handleTimeout(word, wordDBResource, wordFromResource, builder.build(), cacheIfCut, background);
 		}
 
-		// then add all 2nd hops
-		for (final Entry<String, WikiVertex> entry : urlToVertex.entrySet()) {
-			final String url = entry.getKey();
-
-			final Set<String> secondHopSet = resourceConnector.getRelatedFor(url);
-			for (final String url2 : secondHopSet) {
-				final String name2 = createLabelFromResource(url2);
-				final WikiVertex vertex2 = new WikiVertex(name2, url2);
-				retGraph.addVertex(vertex2);
-				retGraph.addEdge(entry.getValue(), vertex2);
-				if (Duration.between(start, Instant.now()).getSeconds() > timeoutSecondHop) {
-					return handleTimeout(wordFromResource, retGraph, word);
-				}
+		// then expand the further hops level by level
+		for (int hop = 2; (hop <= maxHops) && !frontier.isEmpty() && !builder.isEdgeBudgetExhausted(); hop++) {
+			frontier = expandFrontier(builder, frontier, secondHopDeadline);
+			if (frontier == null) {
+				// lookups that finish later are rejected by the frozen builder
+				return handleTimeout(word, wordDBResource, wordFromResource, builder.build(), cacheIfCut, background);
 			}
 		}
 
-		// all went fine, save the graph in the cache and return
+		// all went fine, save the graph in the cache (and store) and return
+		final TopicGraph retGraph = builder.build();
 		graphCache.put(wordFromResource, retGraph);
+		final SenseGraphStore store = graphStore;
+		if (store != null) {
+			store.put(wordDBResource, retGraph);
+		}
 		if (logger.isDebugEnabled()) {
 			logger.debug("SenseGraph for {} has {} nodes and {} vertices", word, retGraph.getVerticesSize(), retGraph.getEdgesSize());
 		}
 		return retGraph;
 	}
 
-	private TopicGraph handleTimeout(String wordFromResource, TopicGraph tg, String word) {
+	/**
+	 * Expands one level of the breadth-first crawl of a sense graph. The related
+	 * resources of the frontier are looked up in batches of
+	 * {@link #frontierBatchSize} (with at most {@link #maxSecondHopParallelism}
+	 * batches in flight); each lookup task adds its results to the builder
+	 * itself. Resources that are new to the graph form the next frontier, as long
+	 * as the vertex budget allows to add them.
+	 *
+	 * @return the next frontier, or <code>null</code> if the deadline was hit
+	 *         while looking up the frontier
+	 */
+	private Map<String, WikiVertex> expandFrontier(TopicGraphBuilder builder, Map<String, WikiVertex> frontier, Deadline deadline) {
+		final int hubThreshold = hubDegreeThreshold;
+		final int hubLimit = hubFanOut;
+		final int fanOutLimit = maxFanOut;
+		final List<String> frontierUrls = new ArrayList<>(frontier.size());
+		for (final Entry<String, WikiVertex> entry : frontier.entrySet()) {
+			final Integer hubDegree = knownHubs.get(entry.getKey());
+			if ((hubLimit == 0) && (hubDegree != null) && (hubDegree > hubThreshold)) {
+				// known hub that is not expanded anyway
+				builder.addPrunedRelated(entry.getValue(), hubDegree);
+			} else {
+				frontierUrls.add(entry.getKey());
+			}
+		}
+		final int batchSize = frontierBatchSize;
+		final Map<String, WikiVertex> nextFrontier = new HashMap<>();
+		final CompletionService<Map<String, WikiVertex>> completionService = new ExecutorCompletionService<>(executor);
+		final List<Future<Map<String, WikiVertex>>> futures = new ArrayList<>();
+		// connectors leave out resources they had no time for
+		final AtomicBoolean incomplete = new AtomicBoolean(false);
+		int next = 0;
+		int running = 0;
+		try {
+			while ((next < frontierUrls.size()) || (running > 0)) {
+				while ((next < frontierUrls.size()) && (running < maxSecondHopParallelism)) {
+					final List<String> batch = frontierUrls.subList(next, Math.min(next + batchSize, frontierUrls.size()));
+					next += batch.size();
+					futures.add(completionService.submit(() -> {
+						final Map<String, Set<String>> related = resourceConnector.getRelatedForAll(batch, deadline);
+						if (!related.keySet().containsAll(batch)) {
+							incomplete.set(true);
+						}
+						return addRelated(builder, frontier, related, hubThreshold, hubLimit, fanOutLimit);
+					}));
+					running++;
+				}
+				final Future<Map<String, WikiVertex>> done = completionService.poll(deadline.remainingMillis(Long.MAX_VALUE), TimeUnit.MILLISECONDS);
+				if (done == null) {
+					return null;
+				}
+				running--;
+				nextFrontier.putAll(done.get());
+				// also after the last batch, as connectors return what they have at the
+				// deadline
+				if (incomplete.get() || deadline.isExpired()) {
+					return null;
+				}
+			}
+			return nextFrontier;
+		} catch (final InterruptedException e) {
+			// the request was cancelled, so do not cache the incomplete graph
+			Thread.currentThread().interrupt();
+			throw new CancellationException("Interrupted while creating a sense graph");
+		} catch (final ExecutionException e) {
+			if (e.getCause() instanceof RuntimeException) {
+				throw (RuntimeException) e.getCause();
+			}
+			throw new IllegalStateException(e.getCause());
+		} finally {
+			// stop lookups that did not finish in time
+			futures.forEach(f -> f.cancel(true));
+		}
+	}
+
+	/**
+	 * Adds the related resources of a batch of the frontier to the sense graph
+	 * (within its budget). Called by the lookup tasks concurrently.
+	 *
+	 * @return the related resources that were new to the graph
+	 */
+	private Map<String, WikiVertex> addRelated(TopicGraphBuilder builder, Map<String, WikiVertex> frontier, Map<String, Set<String>> related,
+			int hubThreshold, int hubLimit, int fanOutLimit) {
+		final Map<String, WikiVertex> added = new HashMap<>();
+		for (final Entry<String, Set<String>> result : related.entrySet()) {
+			final WikiVertex vertex = frontier.get(result.getKey());
+			if (vertex == null) {
+				continue;
+			}
+			int limit = fanOutLimit;
+			if (result.getValue().size() > hubThreshold) {
+				learnHub(result.getKey(), result.getValue().size());
+				limit = Math.min(limit, hubLimit);
+			}
+			for (final String url2 : pruneRelated(builder, vertex, result.getValue(), limit)) {
+				if (builder.isEdgeBudgetExhausted()) {
+					break;
+				}
+				final String name2 = createLabelFromResource(url2);
+				final WikiVertex vertex2 = WikiVertex.of(name2, url2);
+				if (builder.addNeighbour(vertex, vertex2)) {
+					added.put(url2, vertex2);
+				}
+			}
+		}
+		return added;
+	}
+
+	/**
+	 * Returns at most <code>limit</code> of the related resources of the vertex
+	 * and records the rest as pruned. The sample is deterministic (by hash), so
+	 * that crawling again yields the same graph.
+	 */
+	private static Set<String> pruneRelated(TopicGraphBuilder builder, WikiVertex vertex, Set<String> related, int limit) {
+		if (related.size() <= limit) {
+			return related;
+		}
+		builder.addPrunedRelated(vertex, related.size() - limit);
+		final Comparator<String> byHash = Comparator.comparingInt(String::hashCode);
+		return related.stream().sorted(byHash.thenComparing(Comparator.naturalOrder())).limit(limit)
+				.collect(Collectors.toCollection(LinkedHashSet::new));
+	}
+
+	private void learnHub(String resource, int degree) {
+		if ((knownHubs.size() < MAX_KNOWN_HUBS) || knownHubs.containsKey(resource)) {
+			knownHubs.put(resource, degree);
+		}
+	}
+
+	private TopicGraph handleTimeout(String word, String wordDBResource, String wordFromResource, TopicGraph tg, boolean cache,
+			boolean background) {
+		tg.setPartial(true);
+		if (background) {
+			// keep the partial graph that is cached already, a later request tries again
+			logger.warn("Could not complete the SenseGraph for '{}' in the background due to a timeout", word);
+			return tg;
+		}
 		logger.warn("Stopped creation of the SenseGraph for '{}' early due to a timeout", word);
-		graphCache.put(wordFromResource, tg);
+		if (cache) {
+			graphCache.put(wordFromResource, tg);
+		}
+		scheduleCompletion(word, wordDBResource, wordFromResource);
 		if (logger.isDebugEnabled()) {
 			logger.debug("SenseGraph for {} has {} nodes and {} vertices", word, tg.getVerticesSize(), tg.getEdgesSize());
 		}
 		return tg;
 	}
 
-	private String createLabelFromResource(String url) {
-		return resourceConnector.getLabelForResourceSimple(url);
-	}
-
-	private Map<WikiVertex, Double> getSortedCentralityScores(TopicGraph tGraph) {
-		return tGraph.getCentralityScores().entrySet().stream().sorted(Map.Entry.comparingByValue(Collections.reverseOrder()))
-				.collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue, (e1, e2) -> e1, LinkedHashMap::new));
+	/**
+	 * Crawls the sense graph again in the background (with the background
+	 * completion timeout), unless this is already happening. If the crawl
+	 * succeeds, the complete sense graph replaces the partial one in the cache.
+	 */
+	private void scheduleCompletion(String word, String wordDBResource, String wordFromResource) {
+		final CompletableFuture<Void> completion = new CompletableFuture<>();
+		if (!backgroundCompletion || (completingSenseGraphs.putIfAbsent(wordFromResource, completion) != null)) {
+			return;
+		}
+		logger.debug("Completing the SenseGraph for {} in the background", word);
+		final Duration timeout = backgroundCompletionTimeout;
+		try {
+			CompletableFuture.runAsync(() -> {
+				try {
+					buildSenseGraph(word, wordDBResource, wordFromResource, Deadline.none(), timeout.dividedBy(4), timeout, true);
+				} catch (final RuntimeException e) {
+					logger.warn("Could not complete the SenseGraph for '" + word + "' in the background", e);
+				} finally {
+					completingSenseGraphs.remove(wordFromResource, completion);
+					completion.complete(null);
+				}
+			}, executor);
+		} catch (final RuntimeException e) {
+			// e.g. the executor was shut down
+			completingSenseGraphs.remove(wordFromResource, completion);
+			completion.complete(null);
+			logger.warn("Could not schedule the completion of the SenseGraph for '" + word + "'", e);
+		}
 	}
 
-	private List<VertexScoreTuple> getVerticesSortedByCentralityScore(TopicGraph tGraph) {
-		final List<VertexScoreTuple> retList = new ArrayList<>();
-		final Map<WikiVertex, Double> scores = getSortedCentralityScores(tGraph);
-		final Iterator<Entry<WikiVertex, Double>> entryIterator = scores.entrySet().iterator();
-		while (entryIterator.hasNext()) {
-			final Entry<WikiVertex, Double> entry = entryIterator.next();
-			retList.add(new VertexScoreTuple(entry.getKey(), entry.getValue()));
-		}
-		return retList;
+	private String createLabelFromResource(String url) {
+		return resourceConnector.getLabelForResourceSimple(url);
 	}
 
 }
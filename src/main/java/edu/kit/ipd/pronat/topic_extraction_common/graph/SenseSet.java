@@ -0,0 +1,183 @@
+package edu.kit.ipd.pronat.topic_extraction_common.graph;
+
+import java.io.Serializable;
+import java.util.Arrays;
+
+/**
+ * Compact set of senses of a {@link TopicGraph}, identified by their ordinal
+ * within the graph (see {@link TopicGraph#getSenseOrdinal(WikiVertex)}). The
+ * first 64 senses are stored in a single <code>long</code>; only graphs with
+ * more senses need the additional words.
+ *
+ * @author Sebastian Weigelt
+ *
+ */
+public final class SenseSet implements Serializable {
+	private static final long serialVersionUID = 3695218042713318245L;
+	private static final long[] NO_WORDS = new long[0];
+
+	private long bits;
+	/** senses with ordinal 64 and above */
+	private long[] more = NO_WORDS;
+
+	public SenseSet() {
+	}
+
+	private SenseSet(SenseSet other) {
+		bits = other.bits;
+		more = other.more.length == 0 ? NO_WORDS : other.more.clone();
+	}
+
+	public SenseSet copy() {
+		return new SenseSet(this);
+	}
+
+	public void add(int ordinal) {
+		if (ordinal < Long.SIZE) {
+			bits |= 1L << ordinal;
+		} else {
+			final int word = (ordinal >>> 6) - 1;
+			if (word >= more.length) {
+				more = Arrays.copyOf(more, Math.max(word + 1, 2 * more.length));
+			}
+			more[word] |= 1L << ordinal;
+		}
+	}
+
+	public void remove(int ordinal) {
+		if (ordinal < Long.SIZE) {
+			bits &= ~(1L << ordinal);
+		} else {
+			final int word = (ordinal >>> 6) - 1;
+			if (word < more.length) {
+				more[word] &= ~(1L << ordinal);
+			}
+		}
+	}
+
+	public boolean contains(int ordinal) {
+		if (ordinal < Long.SIZE) {
+			return (bits & (1L << ordinal)) != 0;
+		}
+		final int word = (ordinal >>> 6) - 1;
+		return (word < more.length) && ((more[word] & (1L << ordinal)) != 0);
+	}
+
+	/**
+	 * @return the number of senses in the set
+	 */
+	public int cardinality() {
+		int cardinality = Long.bitCount(bits);
+		for (final long word : more) {
+			cardinality += Long.bitCount(word);
+		}
+		return cardinality;
+	}
+
+	public boolean isEmpty() {
+		if (bits != 0) {
+			return false;
+		}
+		for (final long word : more) {
+			if (word != 0) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Removes all senses of the other set from this set.
+	 *
+	 * @param other
+	 *            the senses to remove
+	 */
+	public void removeAll(SenseSet other) {
+		bits &= ~other.bits;
+		for (int i = 0; i < Math.min(more.length, other.more.length); i++) {
+			more[i] &= ~other.more[i];
+		}
+	}
+
+	/**
+	 * @param other
+	 *            the other set
+	 * @return whether all senses of this set are contained in the other set
+	 */
+	public boolean isSubsetOf(SenseSet other) {
+		if ((bits & ~other.bits) != 0) {
+			return false;
+		}
+		for (int i = 0; i < more.length; i++) {
+			final long otherWord = i < other.more.length ? other.more[i] : 0L;
+			if ((more[i] & ~otherWord) != 0) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Returns the next sense in the set, to iterate over the set with
+	 * <code>for (int i = set.nextSense(0); i >= 0; i = set.nextSense(i + 1))</code>.
+	 *
+	 * @param from
+	 *            the ordinal to start from (inclusive)
+	 * @return the next ordinal in the set or -1, if there is none
+	 */
+	public int nextSense(int from) {
+		if (from < Long.SIZE) {
+			final long word = bits & (-1L << from);
+			if (word != 0) {
+				return Long.numberOfTrailingZeros(word);
+			}
+			from = Long.SIZE;
+		}
+		for (int i = (from >>> 6) - 1; i < more.length; i++) {
+			long word = more[i];
+			if (i == ((from >>> 6) - 1)) {
+				word &= -1L << from;
+			}
+			if (word != 0) {
+				return ((i + 1) * Long.SIZE) + Long.numberOfTrailingZeros(word);
+			}
+		}
+		return -1;
+	}
+
+	@Override
+	public int hashCode() {
+		int hash = Long.hashCode(bits);
+		// empty words are ignored, sets are equal regardless of their capacity
+		for (int i = 0; i < more.length; i++) {
+			if (more[i] != 0) {
+				hash = (31 * hash) + (i ^ Long.hashCode(more[i]));
+			}
+		}
+		return hash;
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj) {
+			return true;
+		}
+		if (!(obj instanceof SenseSet)) {
+			return false;
+		}
+		final SenseSet other = (SenseSet) obj;
+		return isSubsetOf(other) && other.isSubsetOf(this);
+	}
+
+	@Override
+	public String toString() {
+		final StringBuilder builder = new StringBuilder("{");
+		for (int i = nextSense(0); i >= 0; i = nextSense(i + 1)) {
+			if (builder.length() > 1) {
+				builder.append(", ");
+			}
+			builder.append(i);
+		}
+		return builder.append('}').toString();
+	}
+}
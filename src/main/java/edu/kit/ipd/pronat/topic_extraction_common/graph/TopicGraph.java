@@ -5,11 +5,13 @@ import java.io.FileWriter;
 import java.io.IOException;
 import java.io.Serializable;
 import java.util.ArrayList;
-import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Optional;
@@ -26,7 +28,6 @@ import org.jgrapht.ext.StringComponentNameProvider;
 import org.jgrapht.graph.DefaultEdge;
 import org.jgrapht.graph.DefaultWeightedEdge;
 import org.jgrapht.graph.WeightedPseudograph;
-import org.jgrapht.graph.builder.UndirectedWeightedGraphBuilder;
 import org.jgrapht.traverse.DepthFirstIterator;
 
 /**
@@ -40,20 +41,149 @@ public class TopicGraph implements Serializable {
 
 	private static final long serialVersionUID = 6011335886418476642L;
 
-	private WeightedPseudograph<WikiVertex, DefaultWeightedEdge> graph;
+	private IndexedPseudograph graph;
 	private List<WikiVertex> senses = new ArrayList<>();
-	private HashMap<WikiVertex, List<WikiVertex>> vertexToConnectedSenseVertices = new HashMap<>();
-	private HashMap<Integer, Set<WikiVertex>> cachedVerticesConnectivity = new HashMap<>();
+	/** The senses each vertex is connected to, as ordinals of the senses */
+	private HashMap<WikiVertex, SenseSet> vertexToConnectedSenses = new HashMap<>();
+	private HashMap<WikiVertex, Integer> senseOrdinals = new HashMap<>();
+	/** The sense of each ordinal; <code>null</code> for ordinals that are free */
+	private ArrayList<WikiVertex> sensesByOrdinal = new ArrayList<>();
+	/** The vertices per connectivity, maintained along with the connected senses */
+	private ArrayList<Set<WikiVertex>> verticesByConnectivity = new ArrayList<>();
+	private int maxSenseConnectivity = 0;
+	/** Inserted sense graphs, keyed by their (immutable copy of the) senses */
+	private LinkedHashMap<List<WikiVertex>, SenseGraphContribution> senseGraphContributions = new LinkedHashMap<>();
+	/** Index from a sense to the key of the sense graph it belongs to */
+	private HashMap<WikiVertex, List<WikiVertex>> senseToContributionKey = new HashMap<>();
+	private volatile boolean partial = false;
+	private HashMap<WikiVertex, Integer> prunedRelated = new HashMap<>();
+	/**
+	 * Increase of all edge weights by {@link #increaseWeights()} that was not
+	 * applied to the edges yet
+	 */
+	private int pendingWeightIncrease = 0;
+	/** Whether the multiplicity of a contribution changed since it was applied */
+	private boolean pendingMultiplicities = false;
 
 	private PageRank<WikiVertex, DefaultWeightedEdge> pageRank = null;
+	private transient Map<WikiVertex, Double> centralityScores = null;
+	private transient Map<WikiVertex, Double> outdatedCentralityScores = null;
+	private transient TopicGraphSnapshot snapshot = null;
+
+	/**
+	 * The part a sense graph contributed to this graph: the edges that were
+	 * created for it and how often it was added. Repeated additions only count
+	 * the multiplicity; the weights of the edges catch up lazily (see
+	 * {@link TopicGraph#applyPendingWeights()}).
+	 */
+	private static class SenseGraphContribution implements Serializable {
+		private static final long serialVersionUID = -3207622146339424557L;
+
+		private final TopicGraph senseGraph;
+		private final List<DefaultWeightedEdge> edges = new ArrayList<>();
+		private int multiplicity = 1;
+		/** The multiplicity the weights of the edges reflect */
+		private int appliedMultiplicity = 1;
+
+		private SenseGraphContribution(TopicGraph senseGraph) {
+			this.senseGraph = senseGraph;
+		}
+	}
+
+	/**
+	 * Hash index from a key to the vertices with that key. Lookups return the
+	 * vertex that was added first; keys of several vertices are rare, so their
+	 * vertices are only listed for these keys.
+	 */
+	private static final class VertexIndex implements Serializable {
+		private static final long serialVersionUID = 8815026785207313390L;
+
+		private final HashMap<String, WikiVertex> first = new HashMap<>();
+		private final HashMap<String, List<WikiVertex>> collisions = new HashMap<>();
+
+		private WikiVertex get(String key) {
+			return first.get(key);
+		}
+
+		private void add(String key, WikiVertex v) {
+			WikiVertex existing = first.putIfAbsent(key, v);
+			if (existing != null) {
+				collisions.computeIfAbsent(key, k -> new ArrayList<>(List.of(existing))).add(v);
+			}
+		}
+
+		private void remove(String key, WikiVertex v) {
+			List<WikiVertex> vertices = collisions.get(key);
+			if (vertices == null) {
+				first.remove(key, v);
+				return;
+			}
+			vertices.remove(v);
+			first.put(key, vertices.get(0));
+			if (vertices.size() == 1) {
+				collisions.remove(key);
+			}
+		}
+	}
+
+	/**
+	 * The underlying graph, which indexes its vertices by label, lower-case
+	 * label and resource. As every vertex is added and removed through
+	 * {@link #addVertex(WikiVertex)} and {@link #removeVertex(WikiVertex)} (also
+	 * by jgrapht itself), the indexes cannot get out of sync.
+	 */
+	private static final class IndexedPseudograph extends WeightedPseudograph<WikiVertex, DefaultWeightedEdge> {
+		private static final long serialVersionUID = -1520843561257338911L;
+
+		// labels are unique, as vertices are equal by their label
+		private final HashMap<String, WikiVertex> byLabel = new HashMap<>();
+		private final VertexIndex byLowerCaseLabel = new VertexIndex();
+		private final VertexIndex byResource = new VertexIndex();
+
+		private IndexedPseudograph() {
+			super(DefaultWeightedEdge.class);
+		}
+
+		@Override
+		public boolean addVertex(WikiVertex v) {
+			if (!super.addVertex(v)) {
+				return false;
+			}
+			byLabel.put(v.getLabel(), v);
+			byLowerCaseLabel.add(toLowerCase(v.getLabel()), v);
+			if (v.getResource() != null) {
+				byResource.add(v.getResource(), v);
+			}
+			return true;
+		}
+
+		@Override
+		public boolean removeVertex(WikiVertex v) {
+			// the vertex of the graph, which may differ from the given (equal) one
+			WikiVertex vertex = byLabel.get(v.getLabel());
+			if (!super.removeVertex(v)) {
+				return false;
+			}
+			byLabel.remove(vertex.getLabel());
+			byLowerCaseLabel.remove(toLowerCase(vertex.getLabel()), vertex);
+			if (vertex.getResource() != null) {
+				byResource.remove(vertex.getResource(), vertex);
+			}
+			return true;
+		}
+
+		private static String toLowerCase(String label) {
+			return label.toLowerCase(Locale.ROOT);
+		}
+	}
 
 	public TopicGraph() {
-		graph = new WeightedPseudograph<>(DefaultWeightedEdge.class);
+		graph = new IndexedPseudograph();
 	}
 
 	public TopicGraph(WikiVertex sense) {
-		graph = new WeightedPseudograph<>(DefaultWeightedEdge.class);
-		senses.add(sense);
+		graph = new IndexedPseudograph();
+		addSense(sense);
 	}
 
 	public static TopicGraph createTopicGraph(List<TopicGraph> senseGraphs) {
@@ -62,41 +192,347 @@ public class TopicGraph implements Serializable {
 		}
 
 		TopicGraph topicGraph = new TopicGraph();
+		for (TopicGraph senseGraph : senseGraphs) {
+			topicGraph.insertSenseGraph(senseGraph);
+		}
+		return topicGraph;
+	}
+
+	/**
+	 * Inserts a sense graph into this topic graph in place. The vertices, edges
+	 * and senses of the sense graph are added and the sense connectivity of the
+	 * touched vertices is updated. If an equal sense graph was inserted before,
+	 * the weights of its edges are increased instead (detected in constant time
+	 * by the senses of the sense graph); the increase is only counted here and
+	 * applied once the weights are needed. The provided sense graph is not
+	 * modified.
+	 *
+	 * @param senseGraph
+	 *            the sense graph to insert
+	 */
+	public synchronized void insertSenseGraph(TopicGraph senseGraph) {
+		final List<WikiVertex> key;
+		synchronized (senseGraph) {
+			key = List.copyOf(senseGraph.senses);
+		}
+		SenseGraphContribution contribution = senseGraphContributions.get(key);
+		if (contribution != null) {
+			contribution.multiplicity++;
+			pendingMultiplicities = true;
+			invalidateCentralityScores();
+			return;
+		}
 
-		// fill HashMap (vertexToConnectedSenseVertices) with Vertex and a List
-		// of SenseVertices
-		for (TopicGraph tg : senseGraphs) {
-			for (WikiVertex v : tg.getVertexSet()) {
-				List<WikiVertex> list = topicGraph.vertexToConnectedSenseVertices.get(v);
-				if (list == null) {
-					list = new ArrayList<>();
+		applyPendingWeightIncrease();
+		contribution = new SenseGraphContribution(senseGraph);
+		SenseSet connectedSenses = new SenseSet();
+		for (WikiVertex sense : key) {
+			connectedSenses.add(getOrCreateSenseOrdinal(sense));
+		}
+		synchronized (senseGraph) {
+			senseGraph.applyPendingWeights();
+			for (WikiVertex v : senseGraph.graph.vertexSet()) {
+				graph.addVertex(v);
+				addConnectedSenses(v, connectedSenses);
+			}
+			for (DefaultWeightedEdge e : senseGraph.graph.edgeSet()) {
+				DefaultWeightedEdge copy = graph.addEdge(senseGraph.graph.getEdgeSource(e), senseGraph.graph.getEdgeTarget(e));
+				graph.setEdgeWeight(copy, senseGraph.graph.getEdgeWeight(e));
+				contribution.edges.add(copy);
+			}
+			senses.addAll(key);
+			senseGraphContributions.put(key, contribution);
+			for (WikiVertex sense : key) {
+				senseToContributionKey.putIfAbsent(sense, key);
+			}
+		}
+		partial |= senseGraph.partial;
+		senseGraph.getPrunedRelated().forEach((v, count) -> prunedRelated.merge(v, count, Integer::sum));
+		invalidateCentralityScores();
+	}
+
+	/**
+	 * Removes a sense graph that was inserted with
+	 * {@link #insertSenseGraph(TopicGraph)} (or
+	 * {@link #createTopicGraph(List)}) from this topic graph in place. If it was
+	 * inserted multiple times, only the additional weights of one insertion are
+	 * removed. Otherwise, its edges, its senses and the vertices that are not
+	 * connected to any other sense are removed.
+	 *
+	 * @param senseGraph
+	 *            the sense graph to remove
+	 * @return whether the sense graph was part of this topic graph
+	 */
+	public synchronized boolean removeSenseGraph(TopicGraph senseGraph) {
+		synchronized (senseGraph) {
+			return removeContribution(senseGraph.senses);
+		}
+	}
+
+	/**
+	 * Removes the sense graph of the given sense from this topic graph.
+	 *
+	 * @param sense
+	 *            the sense
+	 * @return whether a sense graph for the sense was part of this topic graph
+	 * @see #removeSenseGraph(TopicGraph)
+	 */
+	public synchronized boolean removeSenseGraphOf(WikiVertex sense) {
+		List<WikiVertex> key = senseToContributionKey.get(sense);
+		return (key != null) && removeContribution(key);
+	}
+
+	private boolean removeContribution(List<WikiVertex> key) {
+		SenseGraphContribution contribution = senseGraphContributions.get(key);
+		if (contribution == null) {
+			return false;
+		}
+		if (contribution.multiplicity > 1) {
+			contribution.multiplicity--;
+			pendingMultiplicities = true;
+			invalidateCentralityScores();
+			return true;
+		}
+
+		senseGraphContributions.remove(key);
+		TopicGraph senseGraph = contribution.senseGraph;
+		graph.removeAllEdges(contribution.edges);
+		// other sense graphs with the same senses may still connect the vertices to them
+		List<SenseGraphContribution> overlapping = new ArrayList<>();
+		for (Entry<List<WikiVertex>, SenseGraphContribution> entry : senseGraphContributions.entrySet()) {
+			if (!Collections.disjoint(entry.getKey(), key)) {
+				overlapping.add(entry.getValue());
+			}
+		}
+		synchronized (senseGraph) {
+			for (WikiVertex v : senseGraph.graph.vertexSet()) {
+				if (removeConnectedSenses(v, key, overlapping)) {
+					graph.removeVertex(v);
+				}
+			}
+		}
+		for (WikiVertex sense : key) {
+			senses.remove(sense);
+			senseToContributionKey.remove(sense, key);
+			if (!senses.contains(sense)) {
+				Integer ordinal = senseOrdinals.remove(sense);
+				if (ordinal != null) {
+					sensesByOrdinal.set(ordinal, null);
 				}
-				list.addAll(tg.getSenses());
-				topicGraph.vertexToConnectedSenseVertices.put(v, list);
 			}
 		}
+		partial = senseGraphContributions.values().stream().anyMatch(c -> c.senseGraph.isPartial());
+		senseGraph.getPrunedRelated().forEach((v, count) -> prunedRelated.computeIfPresent(v, (k, c) -> c > count ? c - count : null));
+		invalidateCentralityScores();
+		return true;
+	}
 
-		// add the sense graphs to the topic graph (merging)
-		for (int i = 0; i < senseGraphs.size(); i++) {
-			topicGraph.addSenseGraph(senseGraphs.get(i));
+	/**
+	 * Applies the weight increases that were deferred by repeated sense graphs
+	 * and {@link #increaseWeights()} to the edges, touching every edge at most
+	 * once per contribution. Must be called before the weights are read.
+	 */
+	private void applyPendingWeights() {
+		applyPendingWeightIncrease();
+		if (!pendingMultiplicities) {
+			return;
 		}
+		pendingMultiplicities = false;
+		for (SenseGraphContribution contribution : senseGraphContributions.values()) {
+			int delta = contribution.multiplicity - contribution.appliedMultiplicity;
+			if (delta != 0) {
+				for (DefaultWeightedEdge e : contribution.edges) {
+					graph.setEdgeWeight(e, graph.getEdgeWeight(e) + delta);
+				}
+				contribution.appliedMultiplicity = contribution.multiplicity;
+			}
+		}
+	}
 
-		return topicGraph;
+	/**
+	 * Applies the increase of {@link #increaseWeights()}. Must be called before
+	 * edges are added, as the increase only covers the edges that existed.
+	 */
+	private void applyPendingWeightIncrease() {
+		if (pendingWeightIncrease == 0) {
+			return;
+		}
+		for (DefaultWeightedEdge e : graph.edgeSet()) {
+			graph.setEdgeWeight(e, graph.getEdgeWeight(e) + pendingWeightIncrease);
+		}
+		pendingWeightIncrease = 0;
+	}
+
+	/**
+	 * Returns the ordinal of the sense, assigning the lowest free one if the
+	 * sense has none yet. Ordinals of removed senses are reused, so that the
+	 * sense sets stay small.
+	 */
+	private int getOrCreateSenseOrdinal(WikiVertex sense) {
+		Integer ordinal = senseOrdinals.get(sense);
+		if (ordinal == null) {
+			// there is a free ordinal only if there are more ordinals than senses
+			ordinal = senseOrdinals.size() < sensesByOrdinal.size() ? sensesByOrdinal.indexOf(null) : -1;
+			if (ordinal < 0) {
+				ordinal = sensesByOrdinal.size();
+				sensesByOrdinal.add(sense);
+			} else {
+				sensesByOrdinal.set(ordinal, sense);
+			}
+			senseOrdinals.put(sense, ordinal);
+		}
+		return ordinal;
+	}
+
+	private void addConnectedSenses(WikiVertex v, SenseSet connectedSenses) {
+		SenseSet set = vertexToConnectedSenses.get(v);
+		if (set == null) {
+			vertexToConnectedSenses.put(v, connectedSenses.copy());
+			updateConnectivityIndex(v, 0, connectedSenses.cardinality());
+			return;
+		}
+		int oldConnectivity = set.cardinality();
+		for (int i = connectedSenses.nextSense(0); i >= 0; i = connectedSenses.nextSense(i + 1)) {
+			set.add(i);
+		}
+		updateConnectivityIndex(v, oldConnectivity, set.cardinality());
+	}
+
+	/**
+	 * Removes the connection of the vertex to the senses, unless one of the
+	 * overlapping sense graphs connects it to the sense as well.
+	 *
+	 * @return whether the vertex is not connected to any sense anymore
+	 */
+	private boolean removeConnectedSenses(WikiVertex v, List<WikiVertex> connectedSenses, List<SenseGraphContribution> overlapping) {
+		SenseSet set = vertexToConnectedSenses.get(v);
+		if (set == null) {
+			return false;
+		}
+		int oldConnectivity = set.cardinality();
+		for (WikiVertex sense : connectedSenses) {
+			Integer ordinal = senseOrdinals.get(sense);
+			if ((ordinal != null) && !isConnectedByAnyOf(v, sense, overlapping)) {
+				set.remove(ordinal);
+			}
+		}
+		updateConnectivityIndex(v, oldConnectivity, set.cardinality());
+		if (set.isEmpty()) {
+			vertexToConnectedSenses.remove(v);
+			return true;
+		}
+		return false;
+	}
+
+	private static boolean isConnectedByAnyOf(WikiVertex v, WikiVertex sense, List<SenseGraphContribution> contributions) {
+		for (SenseGraphContribution contribution : contributions) {
+			synchronized (contribution.senseGraph) {
+				if (contribution.senseGraph.senses.contains(sense) && contribution.senseGraph.graph.containsVertex(v)) {
+					return true;
+				}
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Moves the vertex to the bucket of its new connectivity and keeps track of
+	 * the maximum connectivity.
+	 */
+	private void updateConnectivityIndex(WikiVertex v, int oldConnectivity, int newConnectivity) {
+		if (oldConnectivity == newConnectivity) {
+			return;
+		}
+		if (oldConnectivity > 0) {
+			verticesByConnectivity.get(oldConnectivity).remove(v);
+		}
+		if (newConnectivity > 0) {
+			while (verticesByConnectivity.size() <= newConnectivity) {
+				verticesByConnectivity.add(new HashSet<>());
+			}
+			verticesByConnectivity.get(newConnectivity).add(v);
+			maxSenseConnectivity = Math.max(maxSenseConnectivity, newConnectivity);
+		}
+		while ((maxSenseConnectivity > 0) && verticesByConnectivity.get(maxSenseConnectivity).isEmpty()) {
+			maxSenseConnectivity--;
+		}
 	}
 
-	private static WeightedPseudograph<WikiVertex, DefaultWeightedEdge> mergeUnderlyingGraphs(
-			WeightedPseudograph<WikiVertex, DefaultWeightedEdge> g1, WeightedPseudograph<WikiVertex, DefaultWeightedEdge> g2) {
-		UndirectedWeightedGraphBuilder<WikiVertex, DefaultWeightedEdge, WeightedPseudograph<WikiVertex, DefaultWeightedEdge>> graphBuilder = new UndirectedWeightedGraphBuilder<>(
-				new WeightedPseudograph<WikiVertex, DefaultWeightedEdge>(DefaultWeightedEdge.class));
+	/**
+	 * Marks the centrality scores as outdated and drops the snapshot. The scores
+	 * are kept to warm-start the next ranking.
+	 */
+	private void invalidateCentralityScores() {
+		if (centralityScores != null) {
+			outdatedCentralityScores = centralityScores;
+			centralityScores = null;
+		}
+		pageRank = null;
+		snapshot = null;
+	}
 
-		graphBuilder.addGraph(g1);
-		graphBuilder.addGraph(g2);
+	/**
+	 * Copies all vertices and edges of the source graph into the target graph.
+	 * Edges are created anew (instead of sharing the edge objects of the source)
+	 * as the weight is stored within the edge.
+	 */
+	private static void copyUnderlyingGraph(WeightedPseudograph<WikiVertex, DefaultWeightedEdge> source,
+			WeightedPseudograph<WikiVertex, DefaultWeightedEdge> target) {
+		for (WikiVertex v : source.vertexSet()) {
+			target.addVertex(v);
+		}
+		for (DefaultWeightedEdge e : source.edgeSet()) {
+			DefaultWeightedEdge copy = target.addEdge(source.getEdgeSource(e), source.getEdgeTarget(e));
+			target.setEdgeWeight(copy, source.getEdgeWeight(e));
+		}
+	}
 
-		return graphBuilder.build();
+	/**
+	 * Creates a copy of this graph that does not share any mutable state with
+	 * this graph.
+	 *
+	 * @return the copy
+	 */
+	public synchronized TopicGraph copy() {
+		applyPendingWeights();
+		TopicGraph copy = new TopicGraph();
+		copyUnderlyingGraph(graph, copy.graph);
+		copy.senses.addAll(senses);
+		copy.partial = partial;
+		copy.prunedRelated.putAll(prunedRelated);
+		for (Entry<WikiVertex, SenseSet> entry : vertexToConnectedSenses.entrySet()) {
+			copy.vertexToConnectedSenses.put(entry.getKey(), entry.getValue().copy());
+		}
+		for (Set<WikiVertex> bucket : verticesByConnectivity) {
+			copy.verticesByConnectivity.add(new HashSet<>(bucket));
+		}
+		copy.maxSenseConnectivity = maxSenseConnectivity;
+		copy.senseOrdinals.putAll(senseOrdinals);
+		copy.sensesByOrdinal.addAll(sensesByOrdinal);
+		if (!senseGraphContributions.isEmpty()) {
+			// the edges of the copy are new objects, so map the contributions onto them
+			Map<DefaultWeightedEdge, DefaultWeightedEdge> copiedEdges = new HashMap<>();
+			Iterator<DefaultWeightedEdge> copyIter = copy.graph.edgeSet().iterator();
+			for (DefaultWeightedEdge e : graph.edgeSet()) {
+				copiedEdges.put(e, copyIter.next());
+			}
+			for (Entry<List<WikiVertex>, SenseGraphContribution> entry : senseGraphContributions.entrySet()) {
+				SenseGraphContribution contribution = new SenseGraphContribution(entry.getValue().senseGraph);
+				contribution.multiplicity = entry.getValue().multiplicity;
+				contribution.appliedMultiplicity = entry.getValue().multiplicity;
+				for (DefaultWeightedEdge e : entry.getValue().edges) {
+					contribution.edges.add(copiedEdges.get(e));
+				}
+				copy.senseGraphContributions.put(entry.getKey(), contribution);
+			}
+			copy.senseToContributionKey.putAll(senseToContributionKey);
+		}
+		return copy;
 	}
 
 	/**
-	 * Merges two graphs and returns the (new) resulting graph.
+	 * Merges two graphs and returns the (new) resulting graph. Both graphs are
+	 * copied into the result in a single pass.
 	 *
 	 * @param g1
 	 *            first graph
@@ -106,41 +542,133 @@ public class TopicGraph implements Serializable {
 	 */
 	public static TopicGraph mergeGraphs(TopicGraph g1, TopicGraph g2) {
 		TopicGraph retTG = new TopicGraph();
-		retTG.graph = TopicGraph.mergeUnderlyingGraphs(g1.graph, g2.graph);
-		retTG.senses.addAll(g1.senses);
-		retTG.senses.addAll(g2.senses);
+		synchronized (g1) {
+			g1.applyPendingWeights();
+			copyUnderlyingGraph(g1.graph, retTG.graph);
+			retTG.addSenses(g1.senses);
+		}
+		synchronized (g2) {
+			g2.applyPendingWeights();
+			copyUnderlyingGraph(g2.graph, retTG.graph);
+			retTG.addSenses(g2.senses);
+		}
 		return retTG;
 	}
 
-	protected Graph<WikiVertex, DefaultWeightedEdge> getUnderlyingGraph() {
+	protected synchronized Graph<WikiVertex, DefaultWeightedEdge> getUnderlyingGraph() {
+		applyPendingWeights();
 		return graph;
 	}
 
-	public void addSenseGraph(TopicGraph senseGraph, WikiVertex sense) {
-		senses.add(sense);
-		graph = TopicGraph.mergeUnderlyingGraphs(graph, senseGraph.graph);
+	/**
+	 * Adds the vertices and edges of the sense graph to this graph in place and
+	 * adds the given sense. Unlike {@link #insertSenseGraph(TopicGraph)}, the
+	 * sense connectivity is not updated.
+	 *
+	 * @param senseGraph
+	 *            the sense graph
+	 * @param sense
+	 *            the sense
+	 */
+	public synchronized void addSenseGraph(TopicGraph senseGraph, WikiVertex sense) {
+		addSense(sense);
+		applyPendingWeightIncrease();
+		synchronized (senseGraph) {
+			senseGraph.applyPendingWeights();
+			copyUnderlyingGraph(senseGraph.graph, graph);
+		}
+		invalidateCentralityScores();
 	}
 
-	public void addSenseGraph(TopicGraph senseGraph) {
-		senses.addAll(senseGraph.senses);
-		graph = TopicGraph.mergeUnderlyingGraphs(graph, senseGraph.graph);
+	/**
+	 * Adds the vertices, edges and senses of the sense graph to this graph in
+	 * place. Unlike {@link #insertSenseGraph(TopicGraph)}, the sense
+	 * connectivity is not updated.
+	 *
+	 * @param senseGraph
+	 *            the sense graph
+	 */
+	public synchronized void addSenseGraph(TopicGraph senseGraph) {
+		applyPendingWeightIncrease();
+		synchronized (senseGraph) {
+			addSenses(senseGraph.senses);
+			senseGraph.applyPendingWeights();
+			copyUnderlyingGraph(senseGraph.graph, graph);
+		}
+		invalidateCentralityScores();
 	}
 
-	public void addSense(WikiVertex sense) {
+	public synchronized void addSense(WikiVertex sense) {
 		senses.add(sense);
+		getOrCreateSenseOrdinal(sense);
+		invalidateCentralityScores();
 	}
 
-	public List<WikiVertex> getSenses() {
-		return senses;
+	private void addSenses(List<WikiVertex> addedSenses) {
+		for (WikiVertex sense : addedSenses) {
+			addSense(sense);
+		}
 	}
 
-	public void increaseWeights() {
-		for (DefaultWeightedEdge e : graph.edgeSet()) {
-			double weight = graph.getEdgeWeight(e);
-			graph.setEdgeWeight(e, weight + 1.0);
+	/**
+	 * Returns whether the graph is incomplete, e.g. because its creation was
+	 * stopped by a timeout. A topic graph is partial if any of its sense graphs
+	 * is.
+	 *
+	 * @return whether the graph is incomplete
+	 */
+	public boolean isPartial() {
+		return partial;
+	}
+
+	public void setPartial(boolean partial) {
+		this.partial = partial;
+	}
+
+	/**
+	 * Records that related resources of the given vertex were pruned while
+	 * crawling, e.g. because the vertex is a hub.
+	 *
+	 * @param v
+	 *            the vertex
+	 * @param count
+	 *            number of related resources that were not added
+	 */
+	public synchronized void addPrunedRelated(WikiVertex v, int count) {
+		if (count > 0) {
+			prunedRelated.merge(v, count, Integer::sum);
 		}
 	}
 
+	/**
+	 * Returns the vertices whose related resources were pruned while crawling
+	 * together with the number of related resources that were not added.
+	 *
+	 * @return the pruned vertices
+	 */
+	public synchronized Map<WikiVertex, Integer> getPrunedRelated() {
+		return new HashMap<>(prunedRelated);
+	}
+
+	/**
+	 * Returns the senses of this graph in the order they were added, including
+	 * repeated senses.
+	 *
+	 * @return an unmodifiable copy of the senses
+	 */
+	public synchronized List<WikiVertex> getSenses() {
+		return Collections.unmodifiableList(new ArrayList<>(senses));
+	}
+
+	/**
+	 * Increases the weights of all edges by one. The increase is applied to the
+	 * edges lazily, once the weights are needed.
+	 */
+	public synchronized void increaseWeights() {
+		pendingWeightIncrease++;
+		invalidateCentralityScores();
+	}
+
 	/**
 	 * Adds a vertex to the graph
 	 *
@@ -149,6 +677,7 @@ public class TopicGraph implements Serializable {
 	 * @return whether the operation succeeded
 	 */
 	public synchronized boolean addVertex(WikiVertex v) {
+		invalidateCentralityScores();
 		return graph.addVertex(v);
 	}
 
@@ -160,14 +689,51 @@ public class TopicGraph implements Serializable {
 	 * @return whether the operation succeeded
 	 */
 	public synchronized boolean removeVertex(WikiVertex v) {
+		invalidateCentralityScores();
+		SenseSet connectedSenses = vertexToConnectedSenses.remove(v);
+		if (connectedSenses != null) {
+			updateConnectivityIndex(v, connectedSenses.cardinality(), 0);
+		}
 		return graph.removeVertex(v);
 	}
 
+	/**
+	 * Returns the vertex with the given label.
+	 *
+	 * @param label
+	 *            the label
+	 * @return the vertex, if there is one
+	 */
 	public synchronized Optional<WikiVertex> getVertex(String label) {
-		return graph.vertexSet().stream().filter(v -> v.getLabel().equals(label)).findFirst();
+		return Optional.ofNullable(graph.byLabel.get(label));
+	}
+
+	/**
+	 * Returns the vertex with the given label, ignoring its case. If several
+	 * vertices match, the one added first is returned.
+	 *
+	 * @param label
+	 *            the label
+	 * @return the vertex, if there is one
+	 */
+	public synchronized Optional<WikiVertex> getVertexIgnoreCase(String label) {
+		return Optional.ofNullable(graph.byLowerCaseLabel.get(IndexedPseudograph.toLowerCase(label)));
+	}
+
+	/**
+	 * Returns the vertex with the given resource. If several vertices have the
+	 * resource, the one added first is returned.
+	 *
+	 * @param resource
+	 *            the resource URI
+	 * @return the vertex, if there is one
+	 */
+	public synchronized Optional<WikiVertex> getVertexByResource(String resource) {
+		return Optional.ofNullable(graph.byResource.get(resource));
 	}
 
 	public synchronized double getAvgVertexWeight(WikiVertex v) {
+		applyPendingWeights();
 		return graph.edgesOf(v).stream().mapToDouble(e -> graph.getEdgeWeight(e)).average().orElse(1.0);
 	}
 
@@ -181,8 +747,10 @@ public class TopicGraph implements Serializable {
 	 * @return The resulting {@link DefaultEdge}
 	 */
 	public synchronized DefaultWeightedEdge addEdge(WikiVertex v1, WikiVertex v2) {
+		applyPendingWeightIncrease();
 		DefaultWeightedEdge e = graph.addEdge(v1, v2);
 		graph.setEdgeWeight(e, 1.0);
+		invalidateCentralityScores();
 		return e;
 	}
 
@@ -193,8 +761,71 @@ public class TopicGraph implements Serializable {
 	 *            given vertex
 	 * @return initial vertices
 	 */
-	public List<WikiVertex> getInitialVerticesFor(WikiVertex v) {
-		return vertexToConnectedSenseVertices.get(v);
+	public synchronized List<WikiVertex> getInitialVerticesFor(WikiVertex v) {
+		SenseSet set = vertexToConnectedSenses.get(v);
+		if (set == null) {
+			return null;
+		}
+		List<WikiVertex> initialVertices = new ArrayList<>(set.cardinality());
+		for (int i = set.nextSense(0); i >= 0; i = set.nextSense(i + 1)) {
+			initialVertices.add(sensesByOrdinal.get(i));
+		}
+		return initialVertices;
+	}
+
+	/**
+	 * Returns the senses the vertex is connected to (see
+	 * {@link #getSenseOrdinal(WikiVertex)}). The set must not be modified.
+	 *
+	 * @param v
+	 *            given vertex
+	 * @return the connected senses or <code>null</code>, if the vertex is not
+	 *         connected to any sense
+	 */
+	public synchronized SenseSet getConnectedSenses(WikiVertex v) {
+		return vertexToConnectedSenses.get(v);
+	}
+
+	/**
+	 * Returns the connectivity of the vertex, which is the number of senses it is
+	 * connected to.
+	 *
+	 * @param v
+	 *            given vertex
+	 * @return the connectivity
+	 */
+	public synchronized int getSenseConnectivity(WikiVertex v) {
+		SenseSet set = vertexToConnectedSenses.get(v);
+		return set == null ? 0 : set.cardinality();
+	}
+
+	/**
+	 * Returns the ordinal of the sense within this graph, as used in the
+	 * {@link SenseSet}s.
+	 *
+	 * @param sense
+	 *            the sense
+	 * @return the ordinal or -1, if the sense has none
+	 */
+	public synchronized int getSenseOrdinal(WikiVertex sense) {
+		Integer ordinal = senseOrdinals.get(sense);
+		return ordinal == null ? -1 : ordinal;
+	}
+
+	/**
+	 * Returns a new set of all senses of this graph, including senses that no
+	 * vertex is connected to.
+	 *
+	 * @return the senses
+	 */
+	public synchronized SenseSet getSenseSet() {
+		SenseSet set = new SenseSet();
+		for (int ordinal = 0; ordinal < sensesByOrdinal.size(); ordinal++) {
+			if (sensesByOrdinal.get(ordinal) != null) {
+				set.add(ordinal);
+			}
+		}
+		return set;
 	}
 
 	/**
@@ -203,39 +834,24 @@ public class TopicGraph implements Serializable {
 	 *
 	 * @return maximum of connectivity
 	 */
-	public int getMaxSenseConnectivity() {
-		if (vertexToConnectedSenseVertices != null) {
-			return vertexToConnectedSenseVertices.values().stream().map(Collection::size).max(Integer::compareTo).orElse(-1);
-		}
-		return -1;
+	public synchronized int getMaxSenseConnectivity() {
+		return vertexToConnectedSenses.isEmpty() ? -1 : maxSenseConnectivity;
 	}
 
 	/**
-	 * Returns vertices that have the given connectivity
+	 * Returns vertices that have the given connectivity. The index is maintained
+	 * while sense graphs are inserted and removed, so this is a constant time
+	 * lookup.
 	 *
 	 * @param connectivity
 	 *            wanted connectivity
-	 * @return Set of vertices that have the given connectivity
-	 */
-	public Set<WikiVertex> getVerticesWithSenseConnectivity(int connectivity) {
-		// check if cache is already created. If not, create it
-		if (cachedVerticesConnectivity.isEmpty()) {
-			for (Entry<WikiVertex, List<WikiVertex>> entry : vertexToConnectedSenseVertices.entrySet()) {
-				int entryConnectivity = entry.getValue().size();
-				Set<WikiVertex> connSet = cachedVerticesConnectivity.get(entryConnectivity);
-				if (connSet == null) {
-					connSet = new HashSet<>();
-					cachedVerticesConnectivity.put(entryConnectivity, connSet);
-				}
-				connSet.add(entry.getKey());
-			}
-		}
-		// get the vertices with the wanted connectivity
-		Set<WikiVertex> maxConnectedVertices = cachedVerticesConnectivity.get(connectivity);
-		if (maxConnectedVertices == null) {
-			maxConnectedVertices = new HashSet<>();
+	 * @return unmodifiable Set of vertices that have the given connectivity
+	 */
+	public synchronized Set<WikiVertex> getVerticesWithSenseConnectivity(int connectivity) {
+		if ((connectivity <= 0) || (connectivity >= verticesByConnectivity.size())) {
+			return Collections.emptySet();
 		}
-		return maxConnectedVertices;
+		return Collections.unmodifiableSet(verticesByConnectivity.get(connectivity));
 	}
 
 	/**
@@ -261,7 +877,7 @@ public class TopicGraph implements Serializable {
 	 *         connected by a path
 	 */
 	public int shortestPathLength(WikiVertex v1, WikiVertex v2) {
-		DijkstraShortestPath<WikiVertex, DefaultWeightedEdge> dijkstra = new DijkstraShortestPath<>(graph);
+		DijkstraShortestPath<WikiVertex, DefaultWeightedEdge> dijkstra = new DijkstraShortestPath<>(getUnderlyingGraph());
 		GraphPath<WikiVertex, DefaultWeightedEdge> path = dijkstra.getPath(v1, v2);
 		return path == null ? -99 : path.getVertexList().size();
 	}
@@ -272,7 +888,7 @@ public class TopicGraph implements Serializable {
 	 * @return Map of the PageRank scores
 	 */
 	private Map<WikiVertex, Double> calculatePageRankScores() {
-		pageRank = new PageRank<>(graph);
+		pageRank = new PageRank<>(getUnderlyingGraph());
 		return pageRank.getScores();
 	}
 
@@ -315,13 +931,37 @@ public class TopicGraph implements Serializable {
 		return graph.containsVertex(v);
 	}
 
-	public Map<WikiVertex, Double> getCentralityScores() {
-		return getBiasedRanking();
+	/**
+	 * Returns the (biased) centrality scores. The scores are computed lazily and
+	 * kept until the graph changes. After a change, the ranking starts from the
+	 * previous scores, which usually converges faster than starting anew.
+	 *
+	 * @return Map of the centrality scores
+	 */
+	public synchronized Map<WikiVertex, Double> getCentralityScores() {
+		if (centralityScores == null) {
+			centralityScores = getBiasedRanking();
+			outdatedCentralityScores = null;
+		}
+		return centralityScores;
 	}
 
 	private Map<WikiVertex, Double> getBiasedRanking() {
-		Map<WikiVertex, Double> scores = new BiasedPageRank<>(graph, senses).getScores();
-		return scores;
+		return Collections.unmodifiableMap(BiasedPageRank.rank(getSnapshot(), outdatedCentralityScores));
+	}
+
+	/**
+	 * Returns an immutable snapshot of this graph in compressed sparse row
+	 * format. The snapshot is kept until the graph changes.
+	 *
+	 * @return the snapshot
+	 */
+	public synchronized TopicGraphSnapshot getSnapshot() {
+		if (snapshot == null) {
+			applyPendingWeights();
+			snapshot = new TopicGraphSnapshot(graph, senses);
+		}
+		return snapshot;
 	}
 
 	public boolean checkAdjacency(WikiVertex v1, WikiVertex v2) {
@@ -383,28 +1023,32 @@ public class TopicGraph implements Serializable {
 	}
 
 	public static void exportGraphToDotFile(TopicGraph topicGraph, String directory) {
-		Graph<WikiVertex, DefaultWeightedEdge> graph = topicGraph.graph;
 		IntegerComponentNameProvider<WikiVertex> p1 = new IntegerComponentNameProvider<>();
 		StringComponentNameProvider<WikiVertex> p2 = new StringComponentNameProvider<>();
 		DOTExporter<WikiVertex, DefaultWeightedEdge> exporter = new DOTExporter<>(p1, p2, null);
 		String targetDirectory = directory;
 		new File(targetDirectory).mkdirs();
-		try {
-			exporter.exportGraph(graph, new FileWriter(targetDirectory + "graph.dot"));
-		} catch (IOException e) {
-			e.printStackTrace();
+		// with the deferred weights applied, and not modified while exporting
+		synchronized (topicGraph) {
+			try {
+				exporter.exportGraph(topicGraph.getUnderlyingGraph(), new FileWriter(targetDirectory + "graph.dot"));
+			} catch (IOException e) {
+				e.printStackTrace();
+			}
 		}
 	}
 
 	public static void exportGraphToCsvFile(TopicGraph topicGraph, String directory) {
-		Graph<WikiVertex, DefaultWeightedEdge> graph = topicGraph.graph;
 		CSVExporter<WikiVertex, DefaultWeightedEdge> exporter = new CSVExporter<>();
 		String targetDirectory = directory;
 		new File(targetDirectory).mkdirs();
-		try {
-			exporter.exportGraph(graph, new FileWriter(targetDirectory + "graph.csv"));
-		} catch (IOException e) {
-			e.printStackTrace();
+		// with the deferred weights applied, and not modified while exporting
+		synchronized (topicGraph) {
+			try {
+				exporter.exportGraph(topicGraph.getUnderlyingGraph(), new FileWriter(targetDirectory + "graph.csv"));
+			} catch (IOException e) {
+				e.printStackTrace();
+			}
 		}
 	}
 }
@@ -0,0 +1,247 @@
+package edu.kit.ipd.pronat.topic_extraction_common.graph;
+
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.jgrapht.WeightedGraph;
+import org.jgrapht.graph.DefaultWeightedEdge;
+
+/**
+ * Builds a {@link TopicGraph} (e.g. a sense graph) from many threads at once.
+ * Vertices and edges are collected in lock-free structures, so that inserting
+ * threads do not contend on the monitor of a graph; optional budgets for the
+ * number of vertices and edges are enforced atomically. {@link #build()}
+ * freezes the builder and creates the graph in a single pass. Insertions that
+ * arrive after freezing (e.g. from lookups that finished after a timeout) are
+ * rejected.
+ *
+ * @author Sebastian Weigelt
+ *
+ */
+public final class TopicGraphBuilder {
+	private final int maxVertices;
+	private final int maxEdges;
+
+	/** Insertions share the read lock, freezing takes the write lock */
+	private final ReentrantReadWriteLock freezeLock = new ReentrantReadWriteLock();
+	private final ConcurrentHashMap<WikiVertex, Boolean> vertices = new ConcurrentHashMap<>();
+	/** The vertices in the order they were added */
+	private final ConcurrentLinkedQueue<WikiVertex> vertexOrder = new ConcurrentLinkedQueue<>();
+	private final ConcurrentLinkedQueue<Edge> edges = new ConcurrentLinkedQueue<>();
+	private final AtomicInteger vertexCount = new AtomicInteger();
+	private final AtomicInteger edgeCount = new AtomicInteger();
+	private final List<WikiVertex> senses = new CopyOnWriteArrayList<>();
+	private final ConcurrentHashMap<WikiVertex, Integer> prunedRelated = new ConcurrentHashMap<>();
+	private volatile boolean partial = false;
+	private TopicGraph graph = null;
+
+	private static final class Edge {
+		private final WikiVertex source;
+		private final WikiVertex target;
+
+		private Edge(WikiVertex source, WikiVertex target) {
+			this.source = source;
+			this.target = target;
+		}
+	}
+
+	/**
+	 * Creates a builder without budgets.
+	 */
+	public TopicGraphBuilder() {
+		this(Integer.MAX_VALUE, Integer.MAX_VALUE);
+	}
+
+	/**
+	 * Creates a builder that accepts at most the given number of vertices and
+	 * edges.
+	 *
+	 * @param maxVertices
+	 *            the maximum number of vertices. Must be >0
+	 * @param maxEdges
+	 *            the maximum number of edges. Must be >=0
+	 */
+	public TopicGraphBuilder(int maxVertices, int maxEdges) {
+		if ((maxVertices < 1) || (maxEdges < 0)) {
+			throw new IllegalArgumentException("Tried to set an invalid budget");
+		}
+		this.maxVertices = maxVertices;
+		this.maxEdges = maxEdges;
+	}
+
+	/**
+	 * Adds a vertex.
+	 *
+	 * @param v
+	 *            the vertex
+	 * @return whether the vertex was added, i.e. it was new, the budget allowed
+	 *         it and the builder was not frozen yet
+	 */
+	public boolean addVertex(WikiVertex v) {
+		freezeLock.readLock().lock();
+		try {
+			return (graph == null) && addVertexUnlocked(v);
+		} finally {
+			freezeLock.readLock().unlock();
+		}
+	}
+
+	private boolean addVertexUnlocked(WikiVertex v) {
+		if (vertices.containsKey(v) || !reserve(vertexCount, maxVertices)) {
+			return false;
+		}
+		if (vertices.putIfAbsent(v, Boolean.TRUE) != null) {
+			// added concurrently
+			vertexCount.decrementAndGet();
+			return false;
+		}
+		vertexOrder.add(v);
+		return true;
+	}
+
+	/**
+	 * Adds an edge with weight 1.0 between two vertices that were added before.
+	 *
+	 * @param v1
+	 *            first vertex
+	 * @param v2
+	 *            second vertex
+	 * @return whether the edge was added, i.e. the budget allowed it and the
+	 *         builder was not frozen yet
+	 */
+	public boolean addEdge(WikiVertex v1, WikiVertex v2) {
+		if (!vertices.containsKey(v1) || !vertices.containsKey(v2)) {
+			throw new IllegalArgumentException("Tried to add an edge to a vertex that was not added before");
+		}
+		freezeLock.readLock().lock();
+		try {
+			if ((graph != null) || !reserve(edgeCount, maxEdges)) {
+				return false;
+			}
+			edges.add(new Edge(v1, v2));
+			return true;
+		} finally {
+			freezeLock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * Adds an edge from a vertex that was added before to the given neighbour,
+	 * adding the neighbour as well if it is new. The edge is only added if both
+	 * fit into the budget.
+	 *
+	 * @param source
+	 *            the vertex that was added before
+	 * @param neighbour
+	 *            the neighbour
+	 * @return whether the neighbour was added as a new vertex
+	 */
+	public boolean addNeighbour(WikiVertex source, WikiVertex neighbour) {
+		if (!vertices.containsKey(source)) {
+			throw new IllegalArgumentException("Tried to add an edge to a vertex that was not added before");
+		}
+		freezeLock.readLock().lock();
+		try {
+			if ((graph != null) || !reserve(edgeCount, maxEdges)) {
+				return false;
+			}
+			final boolean added = addVertexUnlocked(neighbour);
+			if (!added && !vertices.containsKey(neighbour)) {
+				// no budget for the neighbour, so neither for the edge
+				edgeCount.decrementAndGet();
+				return false;
+			}
+			edges.add(new Edge(source, neighbour));
+			return added;
+		} finally {
+			freezeLock.readLock().unlock();
+		}
+	}
+
+	private static boolean reserve(AtomicInteger count, int max) {
+		int current;
+		do {
+			current = count.get();
+			if (current >= max) {
+				return false;
+			}
+		} while (!count.compareAndSet(current, current + 1));
+		return true;
+	}
+
+	public boolean containsVertex(WikiVertex v) {
+		return vertices.containsKey(v);
+	}
+
+	public int getVertexCount() {
+		return vertexCount.get();
+	}
+
+	public int getEdgeCount() {
+		return edgeCount.get();
+	}
+
+	/**
+	 * @return whether no more edges can be added
+	 */
+	public boolean isEdgeBudgetExhausted() {
+		return edgeCount.get() >= maxEdges;
+	}
+
+	public void addSense(WikiVertex sense) {
+		senses.add(sense);
+	}
+
+	/**
+	 * @see TopicGraph#addPrunedRelated(WikiVertex, int)
+	 */
+	public void addPrunedRelated(WikiVertex v, int count) {
+		if (count > 0) {
+			prunedRelated.merge(v, count, Integer::sum);
+		}
+	}
+
+	/**
+	 * @see TopicGraph#setPartial(boolean)
+	 */
+	public void setPartial(boolean partial) {
+		this.partial = partial;
+	}
+
+	/**
+	 * Freezes the builder and creates the graph. Waits for insertions that are
+	 * in progress; later insertions are rejected. Building again returns the same
+	 * graph.
+	 *
+	 * @return the graph
+	 */
+	public TopicGraph build() {
+		freezeLock.writeLock().lock();
+		try {
+			if (graph == null) {
+				final TopicGraph topicGraph = new TopicGraph();
+				final WeightedGraph<WikiVertex, DefaultWeightedEdge> underlying = (WeightedGraph<WikiVertex, DefaultWeightedEdge>) topicGraph
+						.getUnderlyingGraph();
+				for (final WikiVertex v : vertexOrder) {
+					underlying.addVertex(v);
+				}
+				for (final Edge edge : edges) {
+					underlying.setEdgeWeight(underlying.addEdge(edge.source, edge.target), 1.0);
+				}
+				for (final WikiVertex sense : senses) {
+					topicGraph.addSense(sense);
+				}
+				prunedRelated.forEach(topicGraph::addPrunedRelated);
+				topicGraph.setPartial(partial);
+				graph = topicGraph;
+			}
+			return graph;
+		} finally {
+			freezeLock.writeLock().unlock();
+		}
+	}
+}
@@ -0,0 +1,280 @@
+package edu.kit.ipd.pronat.topic_extraction_common.graph;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.jgrapht.Graph;
+import org.jgrapht.WeightedGraph;
+import org.jgrapht.graph.DefaultWeightedEdge;
+
+/**
+ * Compact binary encoding of (sense) {@link TopicGraph}s.
+ *
+ * <p>
+ * The vertices are dictionary-encoded: they are written once (labels and
+ * resources front-coded against the previous vertex, as most resources share
+ * the same prefix) and referenced by their index afterwards. The adjacency is
+ * stored per source vertex with the target indices sorted and delta-coded as
+ * variable-length integers. Edge weights are only written if any edge has a
+ * weight other than 1.0. The order of the vertices and senses is preserved,
+ * but the edges of a decoded graph are ordered by source and target instead of
+ * the order they were added in. Since version 2, the pruned related resources
+ * per vertex follow.
+ * </p>
+ *
+ * @author Sebastian Weigelt
+ *
+ */
+public final class TopicGraphCodec {
+	private static final int VERSION = 2;
+	private static final int FLAG_WEIGHTED = 1;
+
+	private TopicGraphCodec() {
+	}
+
+	/**
+	 * Encodes the given graph.
+	 *
+	 * @param topicGraph
+	 *            the graph
+	 * @return the encoded graph
+	 */
+	public static byte[] encode(TopicGraph topicGraph) {
+		synchronized (topicGraph) {
+			final Graph<WikiVertex, DefaultWeightedEdge> graph = topicGraph.getUnderlyingGraph();
+
+			// dictionary: the vertices of the graph, then senses that are no vertices
+			final List<WikiVertex> dictionary = new ArrayList<>(graph.vertexSet());
+			final int vertexCount = dictionary.size();
+			final Map<WikiVertex, Integer> ids = new HashMap<>();
+			for (int i = 0; i < vertexCount; i++) {
+				ids.put(dictionary.get(i), i);
+			}
+			for (final WikiVertex sense : topicGraph.getSenses()) {
+				if (!ids.containsKey(sense)) {
+					ids.put(sense, dictionary.size());
+					dictionary.add(sense);
+				}
+			}
+
+			// edges sorted by source and target; weights in the same order
+			final int edgeCount = graph.edgeSet().size();
+			final long[] edges = new long[edgeCount];
+			final Map<Long, List<Double>> weights = new HashMap<>();
+			boolean weighted = false;
+			int e = 0;
+			for (final DefaultWeightedEdge edge : graph.edgeSet()) {
+				final long key = ((long) ids.get(graph.getEdgeSource(edge)) << 32) | ids.get(graph.getEdgeTarget(edge));
+				final double weight = graph.getEdgeWeight(edge);
+				weighted |= weight != 1.0;
+				edges[e++] = key;
+				weights.computeIfAbsent(key, k -> new ArrayList<>()).add(weight);
+			}
+			Arrays.sort(edges);
+
+			final Output out = new Output();
+			out.writeVarInt(VERSION);
+			out.writeVarInt(weighted ? FLAG_WEIGHTED : 0);
+			out.writeVarInt(vertexCount);
+			out.writeVarInt(dictionary.size() - vertexCount);
+			String previousLabel = "";
+			String previousResource = "";
+			for (final WikiVertex vertex : dictionary) {
+				out.writeFrontCoded(previousLabel, vertex.getLabel());
+				out.writeFrontCoded(previousResource, vertex.getResource());
+				previousLabel = vertex.getLabel();
+				previousResource = vertex.getResource() == null ? "" : vertex.getResource();
+			}
+			out.writeVarInt(topicGraph.getSenses().size());
+			for (final WikiVertex sense : topicGraph.getSenses()) {
+				out.writeVarInt(ids.get(sense));
+			}
+
+			final Map<Long, Integer> writtenWeights = new HashMap<>();
+			int next = 0;
+			for (int source = 0; source < vertexCount; source++) {
+				int end = next;
+				while ((end < edgeCount) && ((int) (edges[end] >>> 32) == source)) {
+					end++;
+				}
+				out.writeVarInt(end - next);
+				int previousTarget = 0;
+				for (int i = next; i < end; i++) {
+					final int target = (int) edges[i];
+					out.writeVarInt(target - previousTarget);
+					previousTarget = target;
+					if (weighted) {
+						final int index = writtenWeights.merge(edges[i], 1, Integer::sum) - 1;
+						out.writeDouble(weights.get(edges[i]).get(index));
+					}
+				}
+				next = end;
+			}
+
+			final Map<WikiVertex, Integer> pruned = topicGraph.getPrunedRelated();
+			pruned.keySet().retainAll(ids.keySet());
+			out.writeVarInt(pruned.size());
+			for (final Map.Entry<WikiVertex, Integer> entry : pruned.entrySet()) {
+				out.writeVarInt(ids.get(entry.getKey()));
+				out.writeVarInt(entry.getValue());
+			}
+			return out.toByteArray();
+		}
+	}
+
+	/**
+	 * Decodes a graph that was encoded with {@link #encode(TopicGraph)}.
+	 *
+	 * @param buffer
+	 *            the buffer, positioned at the start of the encoded graph
+	 * @return the decoded graph
+	 * @throws IllegalArgumentException
+	 *             if the buffer does not contain a valid encoded graph (also if
+	 *             it is corrupt)
+	 */
+	public static TopicGraph decode(ByteBuffer buffer) {
+		try {
+			final int version = readVarInt(buffer);
+			if ((version < 1) || (version > VERSION)) {
+				throw new IllegalArgumentException("Unsupported version of encoded graph: " + version);
+			}
+			final boolean weighted = (readVarInt(buffer) & FLAG_WEIGHTED) != 0;
+			final int vertexCount = readCount(buffer);
+			final int dictionarySize = vertexCount + readCount(buffer);
+
+			final TopicGraph topicGraph = new TopicGraph();
+			final WeightedGraph<WikiVertex, DefaultWeightedEdge> graph = (WeightedGraph<WikiVertex, DefaultWeightedEdge>) topicGraph
+					.getUnderlyingGraph();
+			final WikiVertex[] dictionary = new WikiVertex[dictionarySize];
+			String previousLabel = "";
+			String previousResource = "";
+			for (int i = 0; i < dictionarySize; i++) {
+				final String label = readFrontCoded(buffer, previousLabel);
+				final String resource = readFrontCoded(buffer, previousResource);
+				if (label == null) {
+					throw new IllegalArgumentException("Malformed encoded graph: vertex without label");
+				}
+				dictionary[i] = WikiVertex.of(label, resource);
+				previousLabel = label;
+				previousResource = resource == null ? "" : resource;
+				if (i < vertexCount) {
+					graph.addVertex(dictionary[i]);
+				}
+			}
+			final int senseCount = readCount(buffer);
+			for (int i = 0; i < senseCount; i++) {
+				topicGraph.addSense(dictionary[readVarInt(buffer)]);
+			}
+
+			for (int source = 0; source < vertexCount; source++) {
+				final int degree = readCount(buffer);
+				int target = 0;
+				for (int i = 0; i < degree; i++) {
+					target += readVarInt(buffer);
+					final DefaultWeightedEdge edge = graph.addEdge(dictionary[source], dictionary[target]);
+					graph.setEdgeWeight(edge, weighted ? buffer.getDouble() : 1.0);
+				}
+			}
+			if (version >= 2) {
+				final int prunedCount = readCount(buffer);
+				for (int i = 0; i < prunedCount; i++) {
+					topicGraph.addPrunedRelated(dictionary[readVarInt(buffer)], readVarInt(buffer));
+				}
+			}
+			return topicGraph;
+		} catch (BufferUnderflowException | IndexOutOfBoundsException e) {
+			throw new IllegalArgumentException("Malformed encoded graph", e);
+		}
+	}
+
+	private static int readVarInt(ByteBuffer buffer) {
+		int value = 0;
+		for (int shift = 0; shift < 35; shift += 7) {
+			final byte b = buffer.get();
+			value |= (b & 0x7F) << shift;
+			if (b >= 0) {
+				return value;
+			}
+		}
+		throw new IllegalArgumentException("Malformed variable-length integer");
+	}
+
+	/**
+	 * Reads the number of following entries, each of which takes at least one
+	 * byte.
+	 */
+	private static int readCount(ByteBuffer buffer) {
+		final int count = readVarInt(buffer);
+		if ((count < 0) || (count > buffer.remaining())) {
+			throw new IllegalArgumentException("Malformed encoded graph: invalid count " + count);
+		}
+		return count;
+	}
+
+	private static String readFrontCoded(ByteBuffer buffer, String previous) {
+		final int length = readVarInt(buffer);
+		if (length == 0) {
+			return null;
+		}
+		final int shared = readVarInt(buffer);
+		if ((length < 1) || ((length - 1) > buffer.remaining()) || (shared < 0) || (shared > previous.length())) {
+			throw new IllegalArgumentException("Malformed encoded graph: invalid string");
+		}
+		final byte[] suffix = new byte[length - 1];
+		buffer.get(suffix);
+		return previous.substring(0, shared) + new String(suffix, StandardCharsets.UTF_8);
+	}
+
+	private static final class Output extends ByteArrayOutputStream {
+		private Output() {
+			super(256);
+		}
+
+		private void writeVarInt(int value) {
+			while ((value & ~0x7F) != 0) {
+				write((value & 0x7F) | 0x80);
+				value >>>= 7;
+			}
+			write(value);
+		}
+
+		private void writeDouble(double value) {
+			final long bits = Double.doubleToLongBits(value);
+			for (int shift = 56; shift >= 0; shift -= 8) {
+				write((int) (bits >>> shift));
+			}
+		}
+
+		/**
+		 * Writes the string as length of the prefix it shares with the previous
+		 * string plus the remaining suffix. <code>null</code> is written as length
+		 * 0, otherwise the length of the suffix + 1 is written first.
+		 */
+		private void writeFrontCoded(String previous, String value) {
+			if (value == null) {
+				writeVarInt(0);
+				return;
+			}
+			int shared = 0;
+			final int max = Math.min(previous.length(), value.length());
+			while ((shared < max) && (previous.charAt(shared) == value.charAt(shared))) {
+				shared++;
+			}
+			// do not split surrogate pairs
+			if ((shared > 0) && Character.isHighSurrogate(value.charAt(shared - 1))) {
+				shared--;
+			}
+			final byte[] suffix = value.substring(shared).getBytes(StandardCharsets.UTF_8);
+			writeVarInt(suffix.length + 1);
+			writeVarInt(shared);
+			write(suffix, 0, suffix.length);
+		}
+	}
+}
@@ -0,0 +1,170 @@
+package edu.kit.ipd.pronat.topic_extraction_common.graph;
+
+import java.util.HashMap;
+import java.util.List;
+
+import org.jgrapht.Graph;
+import org.jgrapht.Graphs;
+import org.jgrapht.graph.DefaultWeightedEdge;
+
+/**
+ * Immutable snapshot of a {@link TopicGraph} in compressed sparse row format,
+ * for read-heavy computations like the ranking. The vertices are numbered
+ * densely (in the order of the vertex set of the graph). The edges of vertex
+ * <code>v</code> are stored in the positions <code>rowStart(v)</code> (incl.)
+ * to <code>rowEnd(v)</code> (excl.) of the target and weight arrays, in the
+ * same order as in the graph. As the graph is undirected, every edge is
+ * stored for both of its vertices (a loop only once).
+ *
+ * @author Sebastian Weigelt
+ *
+ */
+public final class TopicGraphSnapshot {
+	private final WikiVertex[] vertices;
+	private final HashMap<WikiVertex, Integer> indices;
+	private final int[] offsets;
+	private final int[] targets;
+	private final double[] weights;
+	private final int edgeCount;
+	private final boolean[] sense;
+	private final int senseCount;
+
+	TopicGraphSnapshot(Graph<WikiVertex, DefaultWeightedEdge> graph, List<WikiVertex> senses) {
+		vertices = graph.vertexSet().toArray(new WikiVertex[0]);
+		final int n = vertices.length;
+		indices = new HashMap<>((int) (n / 0.75f) + 1);
+		for (int i = 0; i < n; i++) {
+			indices.put(vertices[i], i);
+		}
+		offsets = new int[n + 1];
+		for (int i = 0; i < n; i++) {
+			offsets[i + 1] = offsets[i] + graph.edgesOf(vertices[i]).size();
+		}
+		targets = new int[offsets[n]];
+		weights = new double[offsets[n]];
+		int k = 0;
+		for (final WikiVertex v : vertices) {
+			for (final DefaultWeightedEdge e : graph.edgesOf(v)) {
+				targets[k] = indices.get(Graphs.getOppositeVertex(graph, e, v));
+				weights[k] = graph.getEdgeWeight(e);
+				k++;
+			}
+		}
+		edgeCount = graph.edgeSet().size();
+		sense = new boolean[n];
+		for (final WikiVertex s : senses) {
+			final Integer index = indices.get(s);
+			if (index != null) {
+				sense[index] = true;
+			}
+		}
+		senseCount = senses.size();
+	}
+
+	public int getVertexCount() {
+		return vertices.length;
+	}
+
+	/**
+	 * @return the number of (undirected) edges
+	 */
+	public int getEdgeCount() {
+		return edgeCount;
+	}
+
+	public WikiVertex getVertex(int v) {
+		return vertices[v];
+	}
+
+	/**
+	 * @param vertex
+	 *            the vertex
+	 * @return the index of the vertex or -1, if it is not part of the graph
+	 */
+	public int indexOf(WikiVertex vertex) {
+		final Integer index = indices.get(vertex);
+		return index == null ? -1 : index;
+	}
+
+	public int rowStart(int v) {
+		return offsets[v];
+	}
+
+	public int rowEnd(int v) {
+		return offsets[v + 1];
+	}
+
+	/**
+	 * @return the number of edges of the vertex
+	 */
+	public int getRowLength(int v) {
+		return offsets[v + 1] - offsets[v];
+	}
+
+	/**
+	 * @param position
+	 *            position within a row
+	 * @return the index of the vertex on the other side of the edge
+	 */
+	public int target(int position) {
+		return targets[position];
+	}
+
+	/**
+	 * @param position
+	 *            position within a row
+	 * @return the weight of the edge
+	 */
+	public double weight(int position) {
+		return weights[position];
+	}
+
+	/**
+	 * @return the sum of the weights of the edges of the vertex
+	 */
+	public double getWeightSum(int v) {
+		double sum = 0;
+		for (int k = offsets[v]; k < offsets[v + 1]; k++) {
+			sum += weights[k];
+		}
+		return sum;
+	}
+
+	/**
+	 * @return the average weight of the edges of the vertex, 1.0 if there are
+	 *         none
+	 */
+	public double getAvgVertexWeight(int v) {
+		final int length = getRowLength(v);
+		return length == 0 ? 1.0 : getWeightSum(v) / length;
+	}
+
+	public boolean isAdjacent(int v1, int v2) {
+		for (int k = offsets[v1]; k < offsets[v1 + 1]; k++) {
+			if (targets[k] == v2) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * @return whether the vertex is a sense of the graph
+	 */
+	public boolean isSense(int v) {
+		return sense[v];
+	}
+
+	/**
+	 * @return the number of senses of the graph (including senses that are no
+	 *         vertices and repeated senses)
+	 */
+	public int getSenseCount() {
+		return senseCount;
+	}
+
+	@Override
+	public String toString() {
+		return "TopicGraphSnapshot [vertices=" + vertices.length + ", edges=" + edgeCount + "]";
+	}
+}
@@ -1,8 +1,22 @@
 package edu.kit.ipd.pronat.topic_extraction_common.graph;
 
 import java.io.Serializable;
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
+ * A vertex of a topic graph. Vertices are equal if their labels are equal.
+ * They can be interned process-wide: {@link #of(String, String)} returns a
+ * canonical instance per label with a dense integer id, so that cached graphs
+ * share their vertices and vertices can be indexed by their id. The table only
+ * references the canonical instances weakly, so vertices that are not used by
+ * any graph anymore are dropped and their ids are reused.
+ *
  * @author Jan Keim
  * @author Sebastian Weigelt
  *
@@ -11,12 +25,132 @@ public class WikiVertex implements Serializable {
 
 	private static final long serialVersionUID = -6530169345636353515L;
 
-	private String label;
-	private String resource;
+	private static final ConcurrentHashMap<String, VertexReference> interned = new ConcurrentHashMap<>();
+	private static final ReferenceQueue<WikiVertex> collected = new ReferenceQueue<>();
+	private static final AtomicInteger nextId = new AtomicInteger();
+	/** Ids of dropped vertices, which are handed out again */
+	private static final ConcurrentLinkedQueue<Integer> freeIds = new ConcurrentLinkedQueue<>();
+
+	private final String label;
+	private final String resource;
+	private final int hash;
+	/** -1 if not canonical, survives serialization to tell them apart */
+	private final int id;
+
+	private static final class VertexReference extends WeakReference<WikiVertex> {
+		private final String label;
+		private final int id;
+
+		private VertexReference(WikiVertex vertex) {
+			super(vertex, collected);
+			label = vertex.label;
+			id = vertex.id;
+		}
+	}
 
+	/**
+	 * Creates a new vertex that is not interned, prefer
+	 * {@link #of(String, String)} to share the instance.
+	 *
+	 * @param label
+	 *            the label
+	 * @param resource
+	 *            the resource
+	 */
 	public WikiVertex(String label, String resource) {
+		this(label, resource, -1);
+	}
+
+	private WikiVertex(String label, String resource, int id) {
 		this.label = label;
 		this.resource = resource;
+		hash = Objects.hashCode(label);
+		this.id = id;
+	}
+
+	/**
+	 * Returns the canonical vertex for the given label. If there is one already,
+	 * it keeps its resource, as vertices are equal by their label.
+	 *
+	 * @param label
+	 *            the label
+	 * @param resource
+	 *            the resource
+	 * @return the canonical vertex
+	 */
+	public static WikiVertex of(String label, String resource) {
+		Objects.requireNonNull(label);
+		expungeCollected();
+		while (true) {
+			final VertexReference reference = interned.get(label);
+			final WikiVertex vertex = reference == null ? null : reference.get();
+			if (vertex != null) {
+				return vertex;
+			}
+			final WikiVertex created = new WikiVertex(label, resource, allocateId());
+			final VertexReference createdReference = new VertexReference(created);
+			if (reference == null ? (interned.putIfAbsent(label, createdReference) == null)
+					: interned.replace(label, reference, createdReference)) {
+				return created;
+			}
+			// interned concurrently, so take that one; the created vertex never
+			// escaped, so its id is free again
+			createdReference.clear();
+			freeIds.add(created.id);
+		}
+	}
+
+	private static int allocateId() {
+		final Integer freeId = freeIds.poll();
+		if (freeId != null) {
+			return freeId;
+		}
+		final int id = nextId.getAndUpdate(i -> i == Integer.MAX_VALUE ? i : i + 1);
+		if (id == Integer.MAX_VALUE) {
+			throw new IllegalStateException("Too many vertices in use at the same time");
+		}
+		return id;
+	}
+
+	/**
+	 * Removes the vertices that were garbage collected from the table and frees
+	 * their ids.
+	 */
+	private static void expungeCollected() {
+		Reference<? extends WikiVertex> reference;
+		while ((reference = collected.poll()) != null) {
+			final VertexReference vertexReference = (VertexReference) reference;
+			interned.remove(vertexReference.label, vertexReference);
+			freeIds.add(vertexReference.id);
+		}
+	}
+
+	/**
+	 * @return the number of canonical vertices in the table, including those
+	 *         that are not referenced anymore but were not dropped yet
+	 */
+	static int getInternedCount() {
+		expungeCollected();
+		return interned.size();
+	}
+
+	/**
+	 * @return an upper bound of the ids of canonical vertices, e.g. for the size
+	 *         of arrays indexed by them. It only grows with the number of
+	 *         vertices in use at the same time.
+	 */
+	public static int getIdBound() {
+		expungeCollected();
+		return nextId.get();
+	}
+
+	/**
+	 * @return the dense, process-wide id of this vertex if it is canonical (see
+	 *         {@link #of(String, String)}), otherwise -1. The id of a dropped
+	 *         vertex may be reused by another vertex.
+	 */
+	public int getId() {
+		return id;
 	}
 
 	/**
@@ -40,7 +174,7 @@ public class WikiVertex implements Serializable {
 	 */
 	@Override
 	public int hashCode() {
-		return label.hashCode();
+		return hash;
 	}
 
 	/*
@@ -76,14 +210,7 @@ public class WikiVertex implements Serializable {
 			return false;
 		}
 		WikiVertex other = (WikiVertex) obj;
-		if (label == null) {
-			if (other.label != null) {
-				return false;
-			}
-		} else if (!label.equals(other.label)) {
-			return false;
-		}
-		return true;
+		return (hash == other.hash) && Objects.equals(label, other.label);
 	}
 
 	public boolean equals(String obj) {
@@ -93,4 +220,12 @@ public class WikiVertex implements Serializable {
 		return obj.equals(label);
 	}
 
+	/**
+	 * Ids are only valid within a process, so deserialized vertices are replaced
+	 * by their canonical instance (if they were canonical before).
+	 */
+	private Object readResolve() {
+		return id < 0 ? this : of(label, resource);
+	}
+
 }
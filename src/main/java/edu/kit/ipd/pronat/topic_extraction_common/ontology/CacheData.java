@@ -23,6 +23,11 @@ public final class CacheData implements Serializable {
 	private static final String FILE = "data.json";
 	private static final int WRITE_AT = 1000;
 	private transient int writeCounter = 0;
+	/** The number of changes a snapshot contains, to not overwrite newer data */
+	private transient long version = 0;
+	/** Snapshots are written explicitly, not when they are finalized */
+	private transient boolean snapshot = false;
+	private static long writtenVersion = -1;
 
 	private static CacheData instance;
 
@@ -74,19 +79,56 @@ public final class CacheData implements Serializable {
 		return equivalentResources;
 	}
 
-	public void store() {
+	/**
+	 * Counts a change of the data. Every {@link #WRITE_AT} changes, the data is
+	 * due to be written to disk.
+	 *
+	 * @return a snapshot of the data to {@link #write()} (outside of the monitor
+	 *         of the data), or <code>null</code> if no write is due
+	 */
+	public CacheData store() {
+		version++;
 		if (++writeCounter % CacheData.WRITE_AT == 0) {
-			write();
+			return snapshot();
 		}
+		return null;
+	}
+
+	/**
+	 * Copies the maps, but not their values: the sets are shared with this data,
+	 * as they are not modified once they are cached.
+	 *
+	 * @return a copy of the data that can be written while the data changes
+	 */
+	public CacheData snapshot() {
+		final CacheData snapshot = new CacheData();
+		snapshot.snapshot = true;
+		snapshot.resources.putAll(resources);
+		snapshot.related.putAll(related);
+		snapshot.labels.putAll(labels);
+		snapshot.resourceSimples.putAll(resourceSimples);
+		snapshot.equivalentResources.putAll(equivalentResources);
+		snapshot.version = version;
+		return snapshot;
 	}
 
 	@Override
 	protected void finalize() throws Throwable {
-		write();
+		if (!snapshot) {
+			write();
+		}
 	}
 
-	private void write() {
+	/**
+	 * Writes the data to disk, unless the same or newer data was written
+	 * already.
+	 */
+	public void write() {
 		synchronized (CacheData.class) {
+			if (version <= CacheData.writtenVersion) {
+				return;
+			}
+			CacheData.writtenVersion = version;
 			try {
 				new File(CacheData.PATH).mkdirs();
 				final File store = new File(CacheData.PATH + File.separator + CacheData.FILE);
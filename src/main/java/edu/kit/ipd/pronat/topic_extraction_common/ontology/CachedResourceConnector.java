@@ -1,6 +1,12 @@
 package edu.kit.ipd.pronat.topic_extraction_common.ontology;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
 import java.util.Optional;
 import java.util.Set;
 import java.util.TreeSet;
@@ -9,7 +15,8 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 /**
- * A cached resource connector decorator.
+ * A cached resource connector decorator. May be used by multiple threads
+ * concurrently; accesses to the {@link CacheData} are guarded by its monitor.
  *
  * @author Dominik Fuchss
  * @author Sebastian Weigelt
@@ -31,61 +38,137 @@ public class CachedResourceConnector implements ResourceConnector {
 
 	@Override
 	public Optional<String> getResourceStringFor(String label) {
-		return getResourceStringFor(label, 0);
+		return getResourceStringFor(label, Deadline.none());
 	}
 
-	private Optional<String> getResourceStringFor(String label, int tryNo) {
+	@Override
+	public Optional<String> getResourceStringFor(String label, Deadline deadline) {
+		return getResourceStringFor(label, deadline, 0);
+	}
+
+	private Optional<String> getResourceStringFor(String label, Deadline deadline, int tryNo) {
 		if (tryNo >= CachedResourceConnector.RETRIES) {
 			CachedResourceConnector.logger.error("Finally give up .. getResourceStringFor");
 			return Optional.empty();
 		}
 
-		if (data.getResources().containsKey(label)) {
-			return Optional.ofNullable(data.getResources().get(label));
+		synchronized (data) {
+			if (data.getResources().containsKey(label)) {
+				return Optional.ofNullable(data.getResources().get(label));
+			}
+		}
+
+		if (deadline.isExpired()) {
+			return Optional.empty();
 		}
 
 		try {
-			final Optional<String> result = connector.getResourceStringFor(label);
-			data.getResources().put(label, result.orElse(null));
-			data.store();
+			final Optional<String> result = connector.getResourceStringFor(label, deadline);
+			if (deadline.isExpired()) {
+				// the result might be incomplete, so do not cache it
+				return result;
+			}
+			store(() -> data.getResources().put(label, result.orElse(null)));
 			return result;
 		} catch (final Exception e) {
 			CachedResourceConnector.logger.error(e.getMessage(), e.getCause());
 			// Wait because of possible timeout of online resource
-			sleep();
-			return getResourceStringFor(label, tryNo + 1);
+			sleep(deadline);
+			return getResourceStringFor(label, deadline, tryNo + 1);
 		}
 
 	}
 
 	@Override
 	public Set<String> getRelatedFor(String resource) {
-		return getRelatedFor(resource, 0);
+		return getRelatedFor(resource, Deadline.none());
 	}
 
-	private Set<String> getRelatedFor(String resource, int tryNo) {
+	@Override
+	public Set<String> getRelatedFor(String resource, Deadline deadline) {
+		return getRelatedFor(resource, deadline, 0);
+	}
+
+	private Set<String> getRelatedFor(String resource, Deadline deadline, int tryNo) {
 		if (tryNo >= CachedResourceConnector.RETRIES) {
 			CachedResourceConnector.logger.error("Finally give up .. getRelatedFor");
 			return new TreeSet<>();
 		}
 
-		if (data.getRelated().containsKey(resource)) {
-			return data.getRelated().get(resource);
+		synchronized (data) {
+			final TreeSet<String> cached = data.getRelated().get(resource);
+			if (cached != null) {
+				return cached;
+			}
+		}
+
+		if (deadline.isExpired()) {
+			return new TreeSet<>();
 		}
 
 		try {
-			final TreeSet<String> result = new TreeSet<>(connector.getRelatedFor(resource));
-			data.getRelated().put(resource, result);
-			data.store();
+			final TreeSet<String> result = new TreeSet<>(connector.getRelatedFor(resource, deadline));
+			if (deadline.isExpired()) {
+				// the result might be incomplete, so do not cache it
+				return result;
+			}
+			store(() -> data.getRelated().put(resource, result));
 			return result;
 		} catch (final Exception e) {
 			CachedResourceConnector.logger.error(e.getMessage(), e.getCause());
 			// Wait because of possible timeout of online resource
-			sleep();
-			return getRelatedFor(resource, tryNo + 1);
+			sleep(deadline);
+			return getRelatedFor(resource, deadline, tryNo + 1);
 		}
 	}
 
+	@Override
+	public Map<String, Set<String>> getRelatedForAll(Collection<String> resources, Deadline deadline) {
+		final Map<String, Set<String>> result = new HashMap<>();
+		final List<String> misses = new ArrayList<>();
+		synchronized (data) {
+			for (final String resource : resources) {
+				final TreeSet<String> cached = data.getRelated().get(resource);
+				if (cached != null) {
+					result.put(resource, cached);
+				} else {
+					misses.add(resource);
+				}
+			}
+		}
+
+		if (misses.isEmpty() || deadline.isExpired()) {
+			return result;
+		}
+
+		try {
+			final Map<String, Set<String>> fetched = connector.getRelatedForAll(misses, deadline);
+			// results might be incomplete after the deadline, so do not cache them then
+			final boolean cache = !deadline.isExpired();
+			for (final Entry<String, Set<String>> entry : fetched.entrySet()) {
+				if (entry.getValue() == null) {
+					// treated as missing
+					continue;
+				}
+				final TreeSet<String> related = new TreeSet<>(entry.getValue());
+				result.put(entry.getKey(), related);
+				if (cache) {
+					store(() -> data.getRelated().put(entry.getKey(), related));
+				}
+			}
+		} catch (final Exception e) {
+			CachedResourceConnector.logger.error(e.getMessage(), e.getCause());
+			// fall back to looking up one after another (with retries)
+			for (final String resource : misses) {
+				if (deadline.isExpired()) {
+					break;
+				}
+				result.put(resource, getRelatedFor(resource, deadline));
+			}
+		}
+		return result;
+	}
+
 	@Override
 	public Optional<String> getLabelForResource(String resource) {
 		return getLabelForResource(resource, 0);
@@ -97,18 +180,19 @@ public class CachedResourceConnector implements ResourceConnector {
 			return Optional.empty();
 		}
 
-		if (data.getLabels().containsKey(resource)) {
-			return Optional.ofNullable(data.getLabels().get(resource));
+		synchronized (data) {
+			if (data.getLabels().containsKey(resource)) {
+				return Optional.ofNullable(data.getLabels().get(resource));
+			}
 		}
 
 		try {
 			final Optional<String> result = connector.getLabelForResource(resource);
-			data.getLabels().put(resource, result.orElse(null));
-			data.store();
+			store(() -> data.getLabels().put(resource, result.orElse(null)));
 			return result;
 		} catch (final Exception e) {
 			CachedResourceConnector.logger.error(e.getMessage(), e.getCause());
-			sleep();
+			sleep(Deadline.none());
 			return getLabelForResource(resource, tryNo + 1);
 		}
 	}
@@ -124,54 +208,97 @@ public class CachedResourceConnector implements ResourceConnector {
 			return null;
 		}
 
-		if (data.getResourceSimples().containsKey(dbResource)) {
-			return data.getResourceSimples().get(dbResource);
+		synchronized (data) {
+			if (data.getResourceSimples().containsKey(dbResource)) {
+				return data.getResourceSimples().get(dbResource);
+			}
 		}
 
 		try {
 			final String result = connector.getLabelForResourceSimple(dbResource);
-			data.getResourceSimples().put(dbResource, result);
-			data.store();
+			store(() -> data.getResourceSimples().put(dbResource, result));
 			return result;
 		} catch (final Exception e) {
 			CachedResourceConnector.logger.error(e.getMessage(), e.getCause());
-			sleep();
+			sleep(Deadline.none());
 			return getLabelForResourceSimple(dbResource, tryNo + 1);
 		}
 	}
 
 	@Override
 	public Set<String> getEquivalentResources(String resource) {
-		return getEquivalentResources(resource, 0);
+		return getEquivalentResources(resource, Deadline.none());
 	}
 
-	private Set<String> getEquivalentResources(String resource, int tryNo) {
+	@Override
+	public Set<String> getEquivalentResources(String resource, Deadline deadline) {
+		return getEquivalentResources(resource, deadline, 0);
+	}
+
+	private Set<String> getEquivalentResources(String resource, Deadline deadline, int tryNo) {
 		if (tryNo >= CachedResourceConnector.RETRIES) {
 			CachedResourceConnector.logger.error("Finally give up .. getEquivalentResources");
 			return new HashSet<>();
 		}
 
-		if (data.getEquivalentResources().containsKey(resource)) {
-			return data.getEquivalentResources().get(resource);
+		synchronized (data) {
+			if (data.getEquivalentResources().containsKey(resource)) {
+				return data.getEquivalentResources().get(resource);
+			}
+		}
+
+		if (deadline.isExpired()) {
+			return new HashSet<>();
 		}
 
 		try {
-			final TreeSet<String> result = new TreeSet<>(connector.getEquivalentResources(resource));
-			data.getEquivalentResources().put(resource, result);
-			data.store();
+			final TreeSet<String> result = new TreeSet<>(connector.getEquivalentResources(resource, deadline));
+			if (deadline.isExpired()) {
+				// the result might be incomplete, so do not cache it
+				return result;
+			}
+			store(() -> data.getEquivalentResources().put(resource, result));
 			return result;
 		} catch (final Exception e) {
 			CachedResourceConnector.logger.error(e.getMessage(), e.getCause());
-			sleep();
-			return getEquivalentResources(resource, tryNo + 1);
+			sleep(deadline);
+			return getEquivalentResources(resource, deadline, tryNo + 1);
+		}
+	}
+
+	/**
+	 * Changes the cached data and writes a snapshot of it to disk if a write is
+	 * due. Writing happens outside of the monitor, so lookups are not blocked by
+	 * it.
+	 */
+	private void store(Runnable change) {
+		final CacheData snapshot;
+		synchronized (data) {
+			change.run();
+			snapshot = data.store();
+		}
+		if (snapshot != null) {
+			snapshot.write();
+		}
+	}
+
+	/**
+	 * Writes the cached data to disk, e.g. after pre-warming the cache.
+	 */
+	public void flush() {
+		final CacheData snapshot;
+		synchronized (data) {
+			snapshot = data.snapshot();
 		}
+		snapshot.write();
 	}
 
-	private void sleep() {
+	private void sleep(Deadline deadline) {
 		try {
-			Thread.sleep(1000);
+			Thread.sleep(deadline.remainingMillis(1000));
 		} catch (InterruptedException e) {
 			CachedResourceConnector.logger.error(e.getMessage(), e.getCause());
+			Thread.currentThread().interrupt();
 		}
 	}
 }
\ No newline at end of file
@@ -3,12 +3,16 @@ package edu.kit.ipd.pronat.topic_extraction_common.ontology;
 import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.Scanner;
 import java.util.Set;
+import java.util.concurrent.TimeUnit;
 
 import org.apache.jena.query.QueryExecution;
 import org.apache.jena.query.QuerySolution;
@@ -26,6 +30,10 @@ public class DBPediaConnector implements ResourceConnector {
 	private static final Logger logger = LoggerFactory.getLogger(DBPediaConnector.class);
 
 	public static final String DEFAULT_SERVICE_URL = "http://dbpedia.org/sparql";
+	/** Timeout for a single query in milliseconds */
+	private static final long QUERY_TIMEOUT = 30000;
+	/** Maximum number of rows the public endpoint returns for a query */
+	private static final int MAX_RESULT_ROWS = 10000;
 	private final String serviceUrl;
 	private static final String baseDbrString = "PREFIX rdfs: <http://www.w3.org/2000/01/rdf-schema#>\n" + "PREFIX bif: <bif:>\n"
 			+ "SELECT DISTINCT ?res ?label WHERE {" + "?res rdfs:label ?label . " + "FILTER (lang(?label) = 'en') . "
@@ -92,11 +100,19 @@ public class DBPediaConnector implements ResourceConnector {
 
 	@Override
 	public Optional<String> getResourceStringFor(String queryLabel) {
+		return getResourceStringFor(queryLabel, Deadline.none());
+	}
+
+	@Override
+	public Optional<String> getResourceStringFor(String queryLabel, Deadline deadline) {
 		Objects.requireNonNull(queryLabel);
+		if (deadline.isExpired()) {
+			return Optional.empty();
+		}
 		String queryString = String.format(getBaseDbrString(), queryLabel.replace("'", " "));
 
 		String retString = null;
-		try (QueryExecution qexec = createQueryExecution(queryString)) {
+		try (QueryExecution qexec = createQueryExecution(queryString, deadline)) {
 			final ResultSet results = qexec.execSelect();
 			while (results.hasNext()) {
 				final QuerySolution soln = results.nextSolution();
@@ -117,12 +133,17 @@ public class DBPediaConnector implements ResourceConnector {
 			// get the page the page is redirected to
 			queryString = "PREFIX dbo: <http://dbpedia.org/ontology/> SELECT DISTINCT ?res WHERE { <%s> dbo:wikiPageRedirects ?res}";
 			queryString = String.format(queryString, retString);
-			try (QueryExecution qexec = createQueryExecution(queryString)) {
+			try (QueryExecution qexec = createQueryExecution(queryString, deadline)) {
 				final ResultSet results = qexec.execSelect();
 				if (results.hasNext()) {
 					final QuerySolution soln = results.nextSolution();
 					retString = soln.get("res").toString();
 				}
+			} catch (final RuntimeException e) {
+				if (!deadline.isExpired()) {
+					throw e;
+				}
+				logger.debug("Could not resolve redirect for \"{}\" in time", retString);
 			}
 		}
 		return Optional.ofNullable(retString);
@@ -130,18 +151,31 @@ public class DBPediaConnector implements ResourceConnector {
 
 	@Override
 	public Set<String> getEquivalentResources(String resource) {
+		return getEquivalentResources(resource, Deadline.none());
+	}
+
+	@Override
+	public Set<String> getEquivalentResources(String resource, Deadline deadline) {
 		Objects.nonNull(resource);
 		final Set<String> retSet = new HashSet<>();
+		if (deadline.isExpired()) {
+			return retSet;
+		}
 
 		final String queryString = String.format(DBPediaConnector.getBaseRedirectQuery(), resource);
 
-		try (QueryExecution qexec = createQueryExecution(queryString)) {
+		try (QueryExecution qexec = createQueryExecution(queryString, deadline)) {
 			final ResultSet results = qexec.execSelect();
 			while (results.hasNext()) {
 				final QuerySolution soln = results.nextSolution();
 				final String uri = soln.get("uri").toString();
 				retSet.add(uri);
 			}
+		} catch (final RuntimeException e) {
+			if (!deadline.isExpired()) {
+				throw e;
+			}
+			logger.debug("Could not get all equivalent resources for {} in time", resource);
 		}
 
 		return retSet;
@@ -166,12 +200,20 @@ public class DBPediaConnector implements ResourceConnector {
 
 	@Override
 	public Set<String> getRelatedFor(String dbResource) {
+		return getRelatedFor(dbResource, Deadline.none());
+	}
+
+	@Override
+	public Set<String> getRelatedFor(String dbResource, Deadline deadline) {
 		Objects.requireNonNull(dbResource);
 		final Set<String> retSet = new HashSet<>();
+		if (deadline.isExpired()) {
+			return retSet;
+		}
 
 		final String queryString = String.format(getBaseRelatedString(), dbResource);
 
-		try (QueryExecution qexec = createQueryExecution(queryString)) {
+		try (QueryExecution qexec = createQueryExecution(queryString, deadline)) {
 			final ResultSet results = qexec.execSelect();
 			while (results.hasNext()) {
 				final QuerySolution soln = results.nextSolution();
@@ -180,11 +222,111 @@ public class DBPediaConnector implements ResourceConnector {
 					retSet.add(uri);
 				}
 			}
+		} catch (final RuntimeException e) {
+			if (!deadline.isExpired()) {
+				throw e;
+			}
+			logger.debug("Could not get all related resources for {} in time", dbResource);
 		}
 
 		return retSet;
 	}
 
+	/**
+	 * Looks up the related resources of all given resources with a single query,
+	 * as the query binds the resource with <code>VALUES</code> anyway. If the
+	 * endpoint cut the result at {@link #getMaxResultRows()} rows, the resources
+	 * are looked up again in two halves; the result of a single resource is paged.
+	 * If the deadline expires, only the resources of the queries that were read
+	 * completely are contained.
+	 */
+	@Override
+	public Map<String, Set<String>> getRelatedForAll(Collection<String> dbResources, Deadline deadline) {
+		final Map<String, Set<String>> retMap = new HashMap<>();
+		if (dbResources.isEmpty() || deadline.isExpired()) {
+			return retMap;
+		}
+		for (final String dbResource : dbResources) {
+			Objects.requireNonNull(dbResource);
+		}
+		addRelatedForAll(new ArrayList<>(dbResources), deadline, retMap);
+		return retMap;
+	}
+
+	private void addRelatedForAll(List<String> dbResources, Deadline deadline, Map<String, Set<String>> retMap) {
+		if (dbResources.size() == 1) {
+			addRelatedPaged(dbResources.get(0), deadline, retMap);
+			return;
+		}
+		final Map<String, Set<String>> batchMap = new HashMap<>();
+		final int rows = readRelated(createRelatedQuery(dbResources), deadline, batchMap);
+		if (rows < 0) {
+			// the rows of a resource may be incomplete, so leave the batch out
+			return;
+		} else if (rows >= getMaxResultRows()) {
+			// cut by the endpoint, so split the batch
+			final int half = dbResources.size() / 2;
+			addRelatedForAll(dbResources.subList(0, half), deadline, retMap);
+			addRelatedForAll(dbResources.subList(half, dbResources.size()), deadline, retMap);
+		} else {
+			for (final String dbResource : dbResources) {
+				retMap.put(dbResource, batchMap.getOrDefault(dbResource, new HashSet<>()));
+			}
+		}
+	}
+
+	private void addRelatedPaged(String dbResource, Deadline deadline, Map<String, Set<String>> retMap) {
+		final String queryString = createRelatedQuery(Arrays.asList(dbResource));
+		final int pageSize = getMaxResultRows();
+		final Map<String, Set<String>> related = new HashMap<>();
+		int rows = readRelated(queryString, deadline, related);
+		if (rows >= pageSize) {
+			// cut by the endpoint, so read the ordered result page by page
+			related.clear();
+			for (int offset = 0; rows >= pageSize; offset += pageSize) {
+				rows = readRelated(queryString + String.format(" ORDER BY ?uri LIMIT %d OFFSET %d", pageSize, offset), deadline, related);
+			}
+		}
+		if (rows >= 0) {
+			retMap.put(dbResource, related.getOrDefault(dbResource, new HashSet<>()));
+		}
+	}
+
+	private String createRelatedQuery(List<String> dbResources) {
+		// bind all resources to ?s and select it as well to assign the results
+		return String.format(getBaseRelatedString(), String.join("> <", dbResources)).replaceFirst("SELECT DISTINCT \\?uri",
+				"SELECT DISTINCT ?s ?uri");
+	}
+
+	/**
+	 * Reads the related resources per resource from the result of the query.
+	 *
+	 * @return the number of rows read, or -1 if the deadline expired before all
+	 *         rows were read
+	 */
+	private int readRelated(String queryString, Deadline deadline, Map<String, Set<String>> retMap) {
+		int rows = 0;
+		try (QueryExecution qexec = createQueryExecution(queryString, deadline)) {
+			final ResultSet results = qexec.execSelect();
+			while (results.hasNext()) {
+				final QuerySolution soln = results.nextSolution();
+				rows++;
+				final String uri = soln.get("uri").toString();
+				final Set<String> retSet = retMap.computeIfAbsent(soln.get("s").toString(), k -> new HashSet<>());
+				if (checkURI(uri)) {
+					retSet.add(uri);
+				}
+			}
+		} catch (final RuntimeException e) {
+			if (!deadline.isExpired()) {
+				throw e;
+			}
+			logger.debug("Could not get all related resources in time");
+			return -1;
+		}
+		return rows;
+	}
+
 	private boolean checkURI(String uri) {
 		return uri.startsWith("http://dbpedia.org/resource") && !uri.contains("File:") && !uri.contains("Wikt:")
 				&& isNoStopWord(getLabelForResourceSimple(uri));
@@ -215,12 +357,41 @@ public class DBPediaConnector implements ResourceConnector {
 		return Optional.ofNullable(retString);
 	}
 
+	/**
+	 * Creates the execution for a query. Subclasses override this to query
+	 * another source; deadlines are applied by
+	 * {@link #createQueryExecution(String, Deadline)}.
+	 *
+	 * @param queryString
+	 *            the query
+	 * @return the query execution
+	 */
 	protected QueryExecution createQueryExecution(String queryString) {
 		final QueryEngineHTTP qe = new QueryEngineHTTP(serviceUrl, queryString);
-		qe.addParam("timeout", "30000");
+		qe.addParam("timeout", String.valueOf(QUERY_TIMEOUT));
 		return qe;
 	}
 
+	/**
+	 * Creates the execution for a query that has to be finished before the given
+	 * deadline using {@link #createQueryExecution(String)}. The client stops
+	 * waiting at the deadline, the endpoint stops the query after
+	 * {@link #QUERY_TIMEOUT}.
+	 *
+	 * @param queryString
+	 *            the query
+	 * @param deadline
+	 *            the deadline
+	 * @return the query execution
+	 */
+	protected QueryExecution createQueryExecution(String queryString, Deadline deadline) {
+		final QueryExecution qexec = createQueryExecution(queryString);
+		if (!deadline.isUnbounded()) {
+			qexec.setTimeout(Math.max(1, deadline.remainingMillis(QUERY_TIMEOUT)), TimeUnit.MILLISECONDS);
+		}
+		return qexec;
+	}
+
 	protected boolean isNoStopWord(String label) {
 		if (label.matches("^\\d+.*")) {
 			// starts with a year
@@ -243,6 +414,13 @@ public class DBPediaConnector implements ResourceConnector {
 		return baseDbrString;
 	}
 
+	/**
+	 * @return the maximum number of rows the endpoint returns for a query
+	 */
+	protected int getMaxResultRows() {
+		return MAX_RESULT_ROWS;
+	}
+
 	/**
 	 * @return the baserelatedstring
 	 */
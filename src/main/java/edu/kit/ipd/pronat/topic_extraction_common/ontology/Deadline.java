@@ -0,0 +1,115 @@
+package edu.kit.ipd.pronat.topic_extraction_common.ontology;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A point in time until which an operation (e.g. a request or a single query)
+ * has to be finished. Deadlines are immutable and based on
+ * {@link System#nanoTime()}.
+ *
+ * @author Sebastian Weigelt
+ *
+ */
+public final class Deadline {
+	private static final Deadline NONE = new Deadline(Long.MAX_VALUE);
+
+	/** nanoTime at which the deadline expires, {@link Long#MAX_VALUE} if unbounded */
+	private final long expiresAt;
+
+	private Deadline(long expiresAt) {
+		this.expiresAt = expiresAt;
+	}
+
+	/**
+	 * Returns a deadline that never expires.
+	 *
+	 * @return the unbounded deadline
+	 */
+	public static Deadline none() {
+		return NONE;
+	}
+
+	/**
+	 * Returns a deadline that expires after the given duration from now on.
+	 *
+	 * @param duration
+	 *            the duration
+	 * @return the deadline
+	 */
+	public static Deadline after(Duration duration) {
+		final long nanos = duration.toNanos();
+		final long now = System.nanoTime();
+		if (nanos >= (Long.MAX_VALUE - now)) {
+			return NONE;
+		}
+		return new Deadline(now + nanos);
+	}
+
+	public boolean isUnbounded() {
+		return expiresAt == Long.MAX_VALUE;
+	}
+
+	public boolean isExpired() {
+		return !isUnbounded() && ((expiresAt - System.nanoTime()) <= 0);
+	}
+
+	/**
+	 * Returns the remaining time until the deadline expires. Never negative.
+	 *
+	 * @return the remaining time, or {@link Long#MAX_VALUE} nanoseconds if
+	 *         unbounded
+	 */
+	public Duration remaining() {
+		if (isUnbounded()) {
+			return Duration.ofNanos(Long.MAX_VALUE);
+		}
+		return Duration.ofNanos(Math.max(0, expiresAt - System.nanoTime()));
+	}
+
+	/**
+	 * Returns the remaining time in milliseconds (rounded up, so that the deadline
+	 * has expired after waiting for it), but at most the given maximum.
+	 *
+	 * @param max
+	 *            the maximum in milliseconds
+	 * @return the remaining time in milliseconds, at most <code>max</code>
+	 */
+	public long remainingMillis(long max) {
+		if (isUnbounded()) {
+			return max;
+		}
+		final long nanos = remaining().toNanos();
+		return Math.min(max, TimeUnit.NANOSECONDS.toMillis(nanos + TimeUnit.MILLISECONDS.toNanos(1) - 1));
+	}
+
+	/**
+	 * Returns the deadline that expires first.
+	 *
+	 * @param other
+	 *            the other deadline
+	 * @return this or the other deadline, whichever expires first
+	 */
+	public Deadline earliest(Deadline other) {
+		return isBefore(other) ? this : other;
+	}
+
+	/**
+	 * Returns whether this deadline expires before the other deadline.
+	 *
+	 * @param other
+	 *            the other deadline
+	 * @return <code>true</code>, if this deadline expires first
+	 */
+	public boolean isBefore(Deadline other) {
+		if (isUnbounded()) {
+			return false;
+		}
+		return other.isUnbounded() || ((expiresAt - other.expiresAt) < 0);
+	}
+
+	@Override
+	public String toString() {
+		return isUnbounded() ? "Deadline [none]" : "Deadline [remaining=" + remaining().toMillis() + "ms]";
+	}
+}
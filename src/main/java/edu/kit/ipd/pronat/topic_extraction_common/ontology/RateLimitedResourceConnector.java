@@ -0,0 +1,129 @@
+package edu.kit.ipd.pronat.topic_extraction_common.ontology;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A resource connector decorator that limits the rate of queries to the
+ * decorated connector, e.g. to not overload a public SPARQL endpoint when
+ * crawling many senses in bulk. Queries are spread evenly: each query waits
+ * for the next free slot. May be used by multiple threads concurrently.
+ *
+ * @author Sebastian Weigelt
+ *
+ */
+public class RateLimitedResourceConnector implements ResourceConnector {
+
+	private final ResourceConnector connector;
+	private final long intervalNanos;
+	private long nextSlot = System.nanoTime();
+
+	/**
+	 * Creates a rate limited connector.
+	 *
+	 * @param connector
+	 *            the decorated connector
+	 * @param queriesPerSecond
+	 *            maximum number of queries per second
+	 */
+	public RateLimitedResourceConnector(ResourceConnector connector, double queriesPerSecond) {
+		if (queriesPerSecond <= 0) {
+			throw new IllegalArgumentException("Tried to set an invalid rate. Must be >0");
+		}
+		this.connector = connector;
+		intervalNanos = (long) (TimeUnit.SECONDS.toNanos(1) / queriesPerSecond);
+	}
+
+	/**
+	 * Waits for the next free slot.
+	 *
+	 * @return <code>false</code>, if the slot is after the deadline
+	 */
+	private boolean acquire(Deadline deadline) {
+		final long wait;
+		synchronized (this) {
+			final long now = System.nanoTime();
+			final long slot = Math.max(nextSlot, now);
+			wait = slot - now;
+			if (!deadline.isUnbounded() && (wait > deadline.remaining().toNanos())) {
+				return false;
+			}
+			nextSlot = slot + intervalNanos;
+		}
+		if (wait > 0) {
+			try {
+				TimeUnit.NANOSECONDS.sleep(wait);
+			} catch (final InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new CancellationException("Interrupted while waiting for a query slot");
+			}
+		}
+		return true;
+	}
+
+	@Override
+	public Optional<String> getResourceStringFor(String label) {
+		return getResourceStringFor(label, Deadline.none());
+	}
+
+	@Override
+	public Optional<String> getResourceStringFor(String label, Deadline deadline) {
+		if (!acquire(deadline)) {
+			return Optional.empty();
+		}
+		return connector.getResourceStringFor(label, deadline);
+	}
+
+	@Override
+	public Set<String> getRelatedFor(String resource) {
+		return getRelatedFor(resource, Deadline.none());
+	}
+
+	@Override
+	public Set<String> getRelatedFor(String resource, Deadline deadline) {
+		if (!acquire(deadline)) {
+			return new HashSet<>();
+		}
+		return connector.getRelatedFor(resource, deadline);
+	}
+
+	@Override
+	public Map<String, Set<String>> getRelatedForAll(Collection<String> resources, Deadline deadline) {
+		// a batch is a single query
+		if (!acquire(deadline)) {
+			return new HashMap<>();
+		}
+		return connector.getRelatedForAll(resources, deadline);
+	}
+
+	@Override
+	public Optional<String> getLabelForResource(String resource) {
+		acquire(Deadline.none());
+		return connector.getLabelForResource(resource);
+	}
+
+	@Override
+	public String getLabelForResourceSimple(String dbResource) {
+		// does not query the endpoint
+		return connector.getLabelForResourceSimple(dbResource);
+	}
+
+	@Override
+	public Set<String> getEquivalentResources(String resource) {
+		return getEquivalentResources(resource, Deadline.none());
+	}
+
+	@Override
+	public Set<String> getEquivalentResources(String resource, Deadline deadline) {
+		if (!acquire(deadline)) {
+			return new HashSet<>();
+		}
+		return connector.getEquivalentResources(resource, deadline);
+	}
+}
@@ -1,5 +1,8 @@
 package edu.kit.ipd.pronat.topic_extraction_common.ontology;
 
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 
@@ -19,4 +22,72 @@ public interface ResourceConnector {
 	String getLabelForResourceSimple(String dbResource);
 
 	Set<String> getEquivalentResources(String resource);
+
+	/**
+	 * Like {@link #getResourceStringFor(String)}, but gives up once the deadline
+	 * expired. Connectors that cannot bound their queries ignore the deadline.
+	 *
+	 * @param label
+	 *            the label
+	 * @param deadline
+	 *            the deadline
+	 * @return the resource, if one was found in time
+	 */
+	default Optional<String> getResourceStringFor(String label, Deadline deadline) {
+		return getResourceStringFor(label);
+	}
+
+	/**
+	 * Like {@link #getRelatedFor(String)}, but gives up once the deadline expired.
+	 * Results may then be incomplete. Connectors that cannot bound their queries
+	 * ignore the deadline.
+	 *
+	 * @param resource
+	 *            the resource
+	 * @param deadline
+	 *            the deadline
+	 * @return the related resources found in time
+	 */
+	default Set<String> getRelatedFor(String resource, Deadline deadline) {
+		return getRelatedFor(resource);
+	}
+
+	/**
+	 * Looks up the related resources of several resources at once, e.g. of the
+	 * frontier of a crawl. Connectors that support it answer this with a single
+	 * query; by default, the resources are looked up one after another. Gives up
+	 * once the deadline expired or the thread was interrupted, so resources may be
+	 * missing from the result.
+	 *
+	 * @param resources
+	 *            the resources
+	 * @param deadline
+	 *            the deadline
+	 * @return the related resources found in time per resource
+	 */
+	default Map<String, Set<String>> getRelatedForAll(Collection<String> resources, Deadline deadline) {
+		final Map<String, Set<String>> related = new HashMap<>();
+		for (final String resource : resources) {
+			if (deadline.isExpired() || Thread.currentThread().isInterrupted()) {
+				break;
+			}
+			related.put(resource, getRelatedFor(resource, deadline));
+		}
+		return related;
+	}
+
+	/**
+	 * Like {@link #getEquivalentResources(String)}, but gives up once the deadline
+	 * expired. Results may then be incomplete. Connectors that cannot bound their
+	 * queries ignore the deadline.
+	 *
+	 * @param resource
+	 *            the resource
+	 * @param deadline
+	 *            the deadline
+	 * @return the equivalent resources found in time
+	 */
+	default Set<String> getEquivalentResources(String resource, Deadline deadline) {
+		return getEquivalentResources(resource);
+	}
 }
@@ -0,0 +1,44 @@
+package edu.kit.ipd.pronat.topic_extraction_common;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import edu.kit.ipd.pronat.topic_extraction_common.graph.WikiVertex;
+
+/**
+ * @author Sebastian Weigelt
+ *
+ */
+public class RankedVertexScoresTest {
+
+	@Test
+	public void testSameOrderAsStableSort() {
+		final Random random = new Random(42);
+		final Map<WikiVertex, Double> scores = new LinkedHashMap<>();
+		for (int i = 0; i < 1000; i++) {
+			// few distinct scores, so that there are many ties
+			scores.put(new WikiVertex("vertex " + i, "vertex" + i), (double) random.nextInt(50));
+		}
+		final List<VertexScoreTuple> expected = new ArrayList<>();
+		scores.forEach((vertex, score) -> expected.add(new VertexScoreTuple(vertex, score)));
+		expected.sort(Collections.reverseOrder());
+
+		final RankedVertexScores ranked = new RankedVertexScores(scores);
+		Assert.assertEquals(expected.size(), ranked.size());
+		// access the prefix first, then everything
+		for (int i = 0; i < 10; i++) {
+			Assert.assertEquals(expected.get(i).vertex, ranked.get(i).vertex);
+		}
+		for (int i = 0; i < expected.size(); i++) {
+			Assert.assertEquals(expected.get(i).vertex, ranked.get(i).vertex);
+			Assert.assertEquals(expected.get(i).score, ranked.get(i).score);
+		}
+	}
+}
@@ -0,0 +1,65 @@
+package edu.kit.ipd.pronat.topic_extraction_common;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import edu.kit.ipd.pronat.topic_extraction_common.graph.TopicGraph;
+import edu.kit.ipd.pronat.topic_extraction_common.graph.WikiVertex;
+
+/**
+ * @author Sebastian Weigelt
+ *
+ */
+public class SenseGraphCacheTest {
+
+	private static TopicGraph createGraph(String sense, int neighbours) {
+		final WikiVertex senseVertex = new WikiVertex(sense, sense);
+		final TopicGraph graph = new TopicGraph(senseVertex);
+		graph.addVertex(senseVertex);
+		for (int i = 0; i < neighbours; i++) {
+			final WikiVertex v = new WikiVertex(sense + i, sense + i);
+			graph.addVertex(v);
+			graph.addEdge(senseVertex, v);
+		}
+		return graph;
+	}
+
+	@Test
+	public void testHitsAndMisses() {
+		final SenseGraphCache cache = new SenseGraphCache();
+		final TopicGraph graph = createGraph("lawn", 2);
+		Assert.assertNull(cache.get("lawn"));
+		cache.put("lawn", graph);
+		Assert.assertSame(graph, cache.get("lawn"));
+		Assert.assertEquals(1, cache.getHitCount());
+		Assert.assertEquals(1, cache.getMissCount());
+		// 3 vertices, 2 edges
+		Assert.assertEquals(5, cache.getWeight());
+	}
+
+	@Test
+	public void testEvictsLeastRecentlyUsed() {
+		final SenseGraphCache cache = new SenseGraphCache(12);
+		cache.put("lawn", createGraph("lawn", 2));
+		cache.put("mower", createGraph("mower", 2));
+		cache.get("lawn");
+		cache.put("grass", createGraph("grass", 2));
+
+		Assert.assertEquals(2, cache.size());
+		Assert.assertEquals(1, cache.getEvictionCount());
+		Assert.assertNotNull(cache.get("lawn"));
+		Assert.assertNull(cache.get("mower"));
+		Assert.assertNotNull(cache.get("grass"));
+		Assert.assertTrue(cache.getWeight() <= cache.getMaximumWeight());
+	}
+
+	@Test
+	public void testDoesNotAdmitTooHeavyGraphs() {
+		final SenseGraphCache cache = new SenseGraphCache(10);
+		cache.put("lawn", createGraph("lawn", 2));
+		cache.put("garden", createGraph("garden", 10));
+		Assert.assertNull(cache.get("garden"));
+		Assert.assertNotNull(cache.get("lawn"));
+		Assert.assertEquals(0, cache.getEvictionCount());
+	}
+}
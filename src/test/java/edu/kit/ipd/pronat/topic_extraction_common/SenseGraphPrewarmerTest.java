@@ -0,0 +1,69 @@
+package edu.kit.ipd.pronat.topic_extraction_common;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import edu.kit.ipd.pronat.topic_extraction_common.graph.TopicGraph;
+import edu.kit.ipd.pronat.topic_extraction_common.ontology.InMemoryResourceConnector;
+
+/**
+ * @author Sebastian Weigelt
+ *
+ */
+public class SenseGraphPrewarmerTest {
+	private static final List<String> SENSES = InMemoryResourceConnector.GARDEN_SENSES;
+
+	private InMemoryResourceConnector connector;
+
+	@Before
+	public void before() {
+		connector = InMemoryResourceConnector.garden();
+	}
+
+	@Test
+	public void testPrewarming() {
+		final TopicExtractionCore core = new TopicExtractionCore(connector);
+		final SenseGraphPrewarmer prewarmer = new SenseGraphPrewarmer(core, 3);
+		final List<SenseGraphPrewarmer.Progress> reported = new ArrayList<>();
+		prewarmer.setProgressListener(progress -> {
+			synchronized (reported) {
+				reported.add(progress);
+			}
+		});
+
+		final SenseGraphPrewarmer.Progress progress = prewarmer.prewarm(SENSES);
+		Assert.assertEquals(4, progress.getTotal());
+		Assert.assertEquals(4, progress.getDone());
+		Assert.assertEquals(0, progress.getUnresolved());
+		Assert.assertEquals(4, reported.size());
+		Assert.assertEquals(4, core.getSenseGraphCache().size());
+
+		final int calls = connector.getRelatedCalls();
+		core.getTopicsForSenses(SENSES);
+		Assert.assertEquals(calls, connector.getRelatedCalls());
+	}
+
+	@Test
+	public void testPrewarmingWaitsForBackgroundCompletion() {
+		connector.relateParts("drone", 20);
+		connector.block("part 3");
+		final TopicExtractionCore core = new TopicExtractionCore(connector);
+		core.setMaxSecondHopParallelism(1);
+		core.setTimeout(Duration.ofMillis(300));
+		core.setBackgroundCompletionTimeout(Duration.ofMinutes(1));
+		final SenseGraphPrewarmer prewarmer = new SenseGraphPrewarmer(core, 1);
+		// the partial sense graph is done, so let the background completion finish
+		prewarmer.setProgressListener(progress -> connector.release());
+
+		prewarmer.prewarm(Arrays.asList("drone"));
+		final TopicGraph cached = core.getSenseGraphCache().peek("drone");
+		Assert.assertFalse(cached.isPartial());
+		Assert.assertEquals(21, cached.getVerticesSize());
+	}
+}
@@ -0,0 +1,153 @@
+package edu.kit.ipd.pronat.topic_extraction_common;
+
+import java.io.RandomAccessFile;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import edu.kit.ipd.pronat.topic_extraction_common.graph.TopicGraph;
+import edu.kit.ipd.pronat.topic_extraction_common.graph.WikiVertex;
+import edu.kit.ipd.pronat.topic_extraction_common.ontology.InMemoryResourceConnector;
+
+/**
+ * @author Sebastian Weigelt
+ *
+ */
+public class SenseGraphStoreTest {
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private Path directory;
+	private InMemoryResourceConnector connector;
+
+	@Before
+	public void before() {
+		directory = folder.getRoot().toPath();
+		connector = InMemoryResourceConnector.garden();
+	}
+
+	private static void assertSameGraph(TopicGraph expected, TopicGraph actual) {
+		Assert.assertEquals(expected.getSenses(), actual.getSenses());
+		Assert.assertEquals(new ArrayList<>(expected.getVertexSet()), new ArrayList<>(actual.getVertexSet()));
+		Assert.assertEquals(expected.getEdgesSize(), actual.getEdgesSize());
+		for (final WikiVertex v : expected.getVertexSet()) {
+			Assert.assertEquals(v.getResource(), actual.getVertex(v.getLabel()).get().getResource());
+			Assert.assertEquals(expected.degreeOf(v), actual.degreeOf(v));
+			Assert.assertEquals(expected.getAvgVertexWeight(v), actual.getAvgVertexWeight(v), 0.0);
+			for (final WikiVertex w : expected.getVertexSet()) {
+				Assert.assertEquals(expected.checkAdjacency(v, w), actual.checkAdjacency(v, w));
+			}
+		}
+	}
+
+	@Test
+	public void testRoundTripAcrossRestart() throws Exception {
+		final TopicExtractionCore core = new TopicExtractionCore(connector);
+		final TopicGraph lawn = core.getTopicGraphForSenses(Arrays.asList("lawn"));
+		// weighted graph with repeated senses
+		final TopicGraph mowers = core.getTopicGraphForSenses(Arrays.asList("mower", "lawn", "mower"));
+		try (SenseGraphStore store = new SenseGraphStore(directory)) {
+			store.put("lawn", lawn);
+			store.put("mowers", mowers);
+			assertSameGraph(lawn, store.get("lawn"));
+		}
+		try (SenseGraphStore store = new SenseGraphStore(directory)) {
+			Assert.assertEquals(2, store.size());
+			assertSameGraph(lawn, store.get("lawn"));
+			assertSameGraph(mowers, store.get("mowers"));
+			Assert.assertNull(store.get("shed"));
+		}
+	}
+
+	@Test
+	public void testIncompleteRecordIsCutOff() throws Exception {
+		final TopicGraph lawn = new TopicExtractionCore(connector).getTopicGraphForSenses(Arrays.asList("lawn"));
+		long sizeOfFirst;
+		try (SenseGraphStore store = new SenseGraphStore(directory)) {
+			store.put("first", lawn);
+			sizeOfFirst = store.getFileSize();
+			store.put("second", lawn);
+		}
+		try (RandomAccessFile file = new RandomAccessFile(directory.resolve("sensegraphs.bin").toFile(), "rw")) {
+			file.setLength(file.length() - 3);
+		}
+		try (SenseGraphStore store = new SenseGraphStore(directory)) {
+			Assert.assertEquals(1, store.size());
+			Assert.assertEquals(sizeOfFirst, store.getFileSize());
+			assertSameGraph(lawn, store.get("first"));
+		}
+	}
+
+	@Test
+	public void testSupersededRecordsAreCompacted() throws Exception {
+		final TopicGraph lawn = new TopicExtractionCore(connector).getTopicGraphForSenses(Arrays.asList("lawn"));
+		final TopicGraph shed = new TopicExtractionCore(connector).getTopicGraphForSenses(Arrays.asList("shed"));
+		long sizeOfCurrent;
+		try (SenseGraphStore store = new SenseGraphStore(directory)) {
+			store.put("shed", shed);
+			store.put("lawn", lawn);
+			sizeOfCurrent = store.getFileSize();
+			for (int i = 0; i < 3; i++) {
+				store.put("shed", shed);
+			}
+			Assert.assertTrue(store.getFileSize() > sizeOfCurrent);
+		}
+		try (SenseGraphStore store = new SenseGraphStore(directory)) {
+			Assert.assertEquals(2, store.size());
+			Assert.assertEquals(sizeOfCurrent, store.getFileSize());
+			assertSameGraph(lawn, store.get("lawn"));
+			assertSameGraph(shed, store.get("shed"));
+		}
+		try (SenseGraphStore store = new SenseGraphStore(directory)) {
+			Assert.assertEquals(sizeOfCurrent, store.getFileSize());
+			assertSameGraph(shed, store.get("shed"));
+		}
+	}
+
+	@Test
+	public void testClosedStoreIsRejected() throws Exception {
+		final TopicGraph lawn = new TopicExtractionCore(connector).getTopicGraphForSenses(Arrays.asList("lawn"));
+		final SenseGraphStore store = new SenseGraphStore(directory);
+		store.put("lawn", lawn);
+		store.close();
+		try {
+			store.put("lawn", lawn);
+			Assert.fail();
+		} catch (final IllegalStateException e) {
+			// expected
+		}
+		try {
+			store.get("lawn");
+			Assert.fail();
+		} catch (final IllegalStateException e) {
+			// expected
+		}
+	}
+
+	@Test
+	public void testRestartedCoreDoesNotCrawlAgain() throws Exception {
+		final List<String> senses = Arrays.asList("lawn", "mower");
+		List<Topic> topics;
+		try (SenseGraphStore store = new SenseGraphStore(directory)) {
+			final TopicExtractionCore core = new TopicExtractionCore(connector);
+			core.setSenseGraphStore(store);
+			topics = core.getTopicsForSenses(senses);
+			Assert.assertEquals(2, store.size());
+		}
+		final int calls = connector.getRelatedCalls();
+		try (SenseGraphStore store = new SenseGraphStore(directory)) {
+			final TopicExtractionCore restarted = new TopicExtractionCore(connector);
+			restarted.setSenseGraphStore(store);
+			Assert.assertEquals(topics, restarted.getTopicsForSenses(senses));
+			Assert.assertEquals(calls, connector.getRelatedCalls());
+			Assert.assertEquals(2, restarted.getSenseGraphCache().size());
+		}
+	}
+}
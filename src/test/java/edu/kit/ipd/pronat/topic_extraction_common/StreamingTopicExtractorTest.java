@@ -0,0 +1,77 @@
+package edu.kit.ipd.pronat.topic_extraction_common;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import edu.kit.ipd.pronat.topic_extraction_common.ontology.InMemoryResourceConnector;
+
+/**
+ * @author Sebastian Weigelt
+ *
+ */
+public class StreamingTopicExtractorTest {
+	private InMemoryResourceConnector connector;
+
+	@Before
+	public void before() {
+		connector = InMemoryResourceConnector.garden();
+	}
+
+	@Test
+	public void testStreamingWindowEqualsFullExtraction() {
+		final TopicExtractionCore core = new TopicExtractionCore(connector);
+		final StreamingTopicExtractor streaming = new StreamingTopicExtractor(core, 3, Duration.ofSeconds(10));
+		final List<List<Topic>> emitted = new ArrayList<>();
+		streaming.addTopicListener(emitted::add);
+
+		final List<String> stream = Arrays.asList("lawn", "mower", "grass", "lawn", "shed", "mower");
+		for (int i = 0; i < stream.size(); i++) {
+			final List<Topic> topics = streaming.addSense(stream.get(i), i * 1000L);
+			final List<String> window = stream.subList(Math.max(0, i - 2), i + 1);
+			Assert.assertEquals(window, streaming.getWindow());
+			// the ranking is warm-started, so the scores of (almost) tied topics may differ slightly
+			final Map<String, Double> expected = new HashMap<>();
+			core.getTopicsForSenses(window).forEach(t -> expected.put(t.getLabel(), t.getScore()));
+			Assert.assertEquals(expected.size(), topics.size());
+			for (final Topic topic : topics) {
+				Assert.assertEquals(expected.get(topic.getLabel()), topic.getScore(), 0.001);
+			}
+		}
+		Assert.assertFalse(emitted.isEmpty());
+		Assert.assertTrue(emitted.size() <= stream.size());
+
+		// senses older than the window duration expire
+		streaming.expire(14000L);
+		Assert.assertEquals(Arrays.asList("shed", "mower"), streaming.getWindow());
+		Assert.assertTrue(streaming.expire(100000L).isEmpty());
+		Assert.assertTrue(emitted.get(emitted.size() - 1).isEmpty());
+	}
+
+	@Test
+	public void testRemovalDoesNotResolveSensesAgain() {
+		final TopicExtractionCore core = new TopicExtractionCore(connector);
+		final StreamingTopicExtractor streaming = new StreamingTopicExtractor(core, 2);
+		streaming.addSense("lawn", 0L);
+		streaming.addSense("pond", 1000L);
+		// now known, but it was added as unknown sense
+		connector.relate("pond", "garden");
+		final int calls = connector.getResourceCalls();
+
+		final List<Topic> topics = streaming.addSense("shed", 2000L);
+		Assert.assertEquals(Arrays.asList("pond", "shed"), streaming.getWindow());
+		Assert.assertEquals(calls + 1, connector.getResourceCalls());
+		final List<String> expected = new ArrayList<>();
+		core.getTopicsForSenses(Arrays.asList("shed")).forEach(t -> expected.add(t.getLabel()));
+		final List<String> actual = new ArrayList<>();
+		topics.forEach(t -> actual.add(t.getLabel()));
+		Assert.assertEquals(expected, actual);
+	}
+}
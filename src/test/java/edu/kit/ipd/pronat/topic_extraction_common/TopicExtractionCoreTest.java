@@ -0,0 +1,429 @@
+package edu.kit.ipd.pronat.topic_extraction_common;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import edu.kit.ipd.pronat.topic_extraction_common.graph.TopicGraph;
+import edu.kit.ipd.pronat.topic_extraction_common.graph.WikiVertex;
+import edu.kit.ipd.pronat.topic_extraction_common.ontology.Deadline;
+import edu.kit.ipd.pronat.topic_extraction_common.ontology.InMemoryResourceConnector;
+
+/**
+ * @author Sebastian Weigelt
+ *
+ */
+public class TopicExtractionCoreTest {
+	private static final List<String> SENSES = InMemoryResourceConnector.GARDEN_SENSES;
+
+	private InMemoryResourceConnector connector;
+
+	@Before
+	public void before() {
+		connector = InMemoryResourceConnector.garden();
+	}
+
+	@Test
+	public void testParallelEqualsSequential() {
+		final TopicExtractionCore sequential = new TopicExtractionCore(connector);
+		final TopicExtractionCore parallel = new TopicExtractionCore(connector);
+		parallel.setParallelSenseGraphCreation(true);
+
+		final TopicGraph seqGraph = sequential.getTopicGraphForSenses(SENSES);
+		final TopicGraph parGraph = parallel.getTopicGraphForSenses(SENSES);
+
+		Assert.assertEquals(seqGraph.getSenses(), parGraph.getSenses());
+		Assert.assertEquals(seqGraph.getVertexSet(), parGraph.getVertexSet());
+		Assert.assertEquals(seqGraph.getEdgesSize(), parGraph.getEdgesSize());
+		final Map<WikiVertex, Double> seqScores = seqGraph.getCentralityScores();
+		final Map<WikiVertex, Double> parScores = parGraph.getCentralityScores();
+		for (final WikiVertex v : seqGraph.getVertexSet()) {
+			Assert.assertEquals(seqGraph.getAvgVertexWeight(v), parGraph.getAvgVertexWeight(v), 0.0001);
+			Assert.assertEquals(seqGraph.getInitialVerticesFor(v).size(), parGraph.getInitialVerticesFor(v).size());
+			Assert.assertEquals(seqScores.get(v), parScores.get(v), 1e-12);
+		}
+	}
+
+	@Test
+	public void testSenseGraphsAreCreatedConcurrently() throws Exception {
+		final TopicExtractionCore parallel = new TopicExtractionCore(connector);
+		parallel.setParallelSenseGraphCreation(true);
+		parallel.setMaxSecondHopParallelism(1);
+		final List<String> senses = Arrays.asList("lawn", "mower", "grass", "shed");
+
+		connector.block();
+		final CompletableFuture<TopicGraph> future = parallel.getTopicGraphForSensesAsync(senses);
+		// the first hops of all senses are looked up at the same time
+		Assert.assertTrue(connector.awaitRunningRelatedCalls(senses.size(), 10000));
+		connector.release();
+		Assert.assertFalse(future.get().isPartial());
+		Assert.assertEquals(senses.size(), future.get().getSenses().size());
+	}
+
+	@Test
+	public void testSecondHopParallelismIsBounded() throws Exception {
+		connector.relateParts("drone", 20);
+		final TopicExtractionCore core = new TopicExtractionCore(connector);
+		core.setMaxSecondHopParallelism(3);
+		core.setFrontierBatchSize(1);
+
+		final String[] parts = new String[20];
+		for (int i = 0; i < parts.length; i++) {
+			parts[i] = "part " + i;
+		}
+		connector.block(parts);
+		final CompletableFuture<TopicGraph> future = core.getTopicGraphForSensesAsync(Arrays.asList("drone"));
+		Assert.assertTrue(connector.awaitRunningRelatedCalls(3, 10000));
+		connector.release();
+		Assert.assertEquals(21, future.get().getVerticesSize());
+		Assert.assertEquals(3, connector.getMaxConcurrentRelatedCalls());
+	}
+
+	@Test
+	public void testSecondHopTimeout() {
+		connector.relateParts("drone", 20);
+		// blocked until the timeout expires
+		connector.block("part 3");
+		final TopicExtractionCore core = new TopicExtractionCore(connector);
+		core.setMaxSecondHopParallelism(1);
+		core.setBackgroundCompletion(false);
+		core.setTimeout(Duration.ofMillis(300));
+
+		final TopicGraph graph = core.getTopicGraphForSenses(Arrays.asList("drone"));
+		Assert.assertTrue(graph.isPartial());
+		Assert.assertEquals(21, graph.getVerticesSize());
+		// cut by the configured timeout, so the partial graph is cached
+		Assert.assertTrue(core.getSenseGraphCache().peek("drone").isPartial());
+	}
+
+	@Test
+	public void testConcurrentRequestsRunInParallel() throws Exception {
+		final int requests = 8;
+		for (int i = 1; i <= requests; i++) {
+			connector.relate("word " + i, "related " + i).relate("related " + i, "other " + i);
+		}
+		final TopicExtractionCore core = new TopicExtractionCore(connector);
+
+		connector.block();
+		final ExecutorService pool = Executors.newFixedThreadPool(requests);
+		final List<Future<List<Topic>>> futures = new ArrayList<>();
+		for (int i = 1; i <= requests; i++) {
+			final String word = "word " + i;
+			futures.add(pool.submit(() -> core.getTopicsForSenses(Arrays.asList(word))));
+		}
+		// the requests do not wait for each other
+		Assert.assertTrue(connector.awaitRunningRelatedCalls(requests, 10000));
+		connector.release();
+		for (final Future<List<Topic>> future : futures) {
+			Assert.assertFalse(future.get().isEmpty());
+		}
+		pool.shutdown();
+	}
+
+	@Test
+	public void testCachedSenseGraphsAreNotModified() {
+		final TopicExtractionCore core = new TopicExtractionCore(connector);
+		final TopicGraph first = core.getTopicGraphForSenses(SENSES);
+		final TopicGraph second = core.getTopicGraphForSenses(SENSES);
+		for (final WikiVertex v : first.getVertexSet()) {
+			Assert.assertEquals(first.getAvgVertexWeight(v), second.getAvgVertexWeight(v), 0.0001);
+		}
+	}
+
+	@Test
+	public void testSenseGraphsShareInternedVertices() {
+		final TopicExtractionCore core = new TopicExtractionCore(connector);
+		final TopicGraph lawn = core.getTopicGraphForSenses(Arrays.asList("lawn"));
+		final TopicGraph shed = core.getTopicGraphForSenses(Arrays.asList("shed"));
+		final WikiVertex garden = lawn.getVertex("garden").get();
+		Assert.assertSame(garden, shed.getVertex("garden").get());
+		Assert.assertSame(garden, WikiVertex.of(garden.getLabel(), garden.getResource()));
+	}
+
+	@Test
+	public void testConcurrentCreationOfSameSenseGraphCrawlsOnce() throws Exception {
+		connector.block("lawn");
+		final TopicExtractionCore core = new TopicExtractionCore(connector);
+		final ExecutorService pool = Executors.newFixedThreadPool(4);
+		final List<Future<TopicGraph>> futures = new ArrayList<>();
+		for (int i = 0; i < 4; i++) {
+			futures.add(pool.submit(() -> core.getTopicGraphForSenses(Arrays.asList("lawn"))));
+		}
+		// the first crawl is blocked until all requests have looked up the resource
+		Assert.assertTrue(connector.awaitRunningRelatedCalls(1, 10000));
+		Assert.assertTrue(connector.awaitResourceCalls(4, 10000));
+		connector.release();
+		for (final Future<TopicGraph> future : futures) {
+			Assert.assertEquals(7, future.get().getVerticesSize());
+		}
+		pool.shutdown();
+		// lawn itself and its three neighbours
+		Assert.assertEquals(4, connector.getRelatedCalls());
+	}
+
+	@Test
+	public void testAsyncEqualsSync() throws Exception {
+		final TopicExtractionCore core = new TopicExtractionCore(connector);
+		final List<Topic> async = core.getTopicsForSensesAsync(SENSES).get();
+		final List<Topic> sync = core.getTopicsForSenses(SENSES);
+		Assert.assertEquals(sync.size(), async.size());
+		for (int i = 0; i < sync.size(); i++) {
+			Assert.assertEquals(sync.get(i).getLabel(), async.get(i).getLabel());
+		}
+	}
+
+	@Test
+	public void testCancelAsync() throws Exception {
+		connector.relateParts("drone", 20);
+		connector.block();
+		final TopicExtractionCore core = new TopicExtractionCore(connector);
+		core.setMaxSecondHopParallelism(1);
+		final ExecutorService executor = Executors.newSingleThreadExecutor();
+
+		final CompletableFuture<TopicGraph> future = core.getTopicGraphForSensesAsync(Arrays.asList("drone"), executor);
+		Assert.assertTrue(connector.awaitRunningRelatedCalls(1, 10000));
+		Assert.assertTrue(future.cancel(true));
+		Assert.assertTrue(future.isCancelled());
+		executor.shutdown();
+		Assert.assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+		// the blocked lookup was interrupted, no further lookups were started and
+		// no incomplete graph is in the cache
+		Assert.assertTrue(connector.awaitInterruptedRelatedCalls(1, 10000));
+		Assert.assertEquals(1, connector.getRelatedCalls());
+		Assert.assertEquals(0, core.getSenseGraphCache().size());
+
+		connector.release();
+		final TopicGraph graph = core.getTopicGraphForSenses(Arrays.asList("drone"));
+		Assert.assertFalse(graph.isPartial());
+		Assert.assertEquals(21, graph.getVerticesSize());
+	}
+
+	@Test
+	public void testBatchEqualsSingleRequests() {
+		final List<List<String>> documents = Arrays.asList(SENSES, Arrays.asList("lawn", "shed"), Arrays.asList("mower"), SENSES);
+		final TopicExtractionCore batchCore = new TopicExtractionCore(connector);
+		final List<List<Topic>> batchTopics = batchCore.getTopicsForSensesBatch(documents);
+		final int batchCalls = connector.getRelatedCalls();
+
+		final TopicExtractionCore core = new TopicExtractionCore(connector);
+		Assert.assertEquals(documents.size(), batchTopics.size());
+		for (int i = 0; i < documents.size(); i++) {
+			final List<Topic> topics = core.getTopicsForSenses(documents.get(i));
+			Assert.assertEquals(topics.size(), batchTopics.get(i).size());
+			for (int j = 0; j < topics.size(); j++) {
+				Assert.assertEquals(topics.get(j).getLabel(), batchTopics.get(i).get(j).getLabel());
+			}
+		}
+		// every distinct sense graph was created only once
+		Assert.assertEquals(batchCalls, connector.getRelatedCalls() - batchCalls);
+	}
+
+	@Test
+	public void testLastBatchAfterDeadline() {
+		// a single batch, which returns everything it has at the deadline
+		connector.relateParts("drone", 3);
+		connector.block("part 2");
+		final TopicExtractionCore core = new TopicExtractionCore(connector);
+		core.setBackgroundCompletion(false);
+		core.setTimeout(Duration.ofMillis(300));
+
+		final TopicGraph graph = core.getTopicGraphForSenses(Arrays.asList("drone"));
+		Assert.assertTrue(graph.isPartial());
+		Assert.assertEquals(4, graph.getVerticesSize());
+	}
+
+	@Test
+	public void testRequestDeadline() {
+		connector.relateParts("drone", 20);
+		connector.block("part 3");
+		final TopicExtractionCore core = new TopicExtractionCore(connector);
+		core.setMaxSecondHopParallelism(1);
+		core.setBackgroundCompletion(false);
+
+		final TopicGraph graph = core.getTopicGraphForSenses(Arrays.asList("drone"), Deadline.after(Duration.ofMillis(300)));
+		Assert.assertTrue(graph.isPartial());
+		Assert.assertEquals(21, graph.getVerticesSize());
+		// the incomplete graph is not cached
+		Assert.assertEquals(0, core.getSenseGraphCache().size());
+	}
+
+	@Test
+	public void testWaiterCrawlsIfRunningCreationIsCut() throws Exception {
+		connector.relateParts("drone", 20);
+		connector.relate("part 3", "material");
+		connector.block("part 3");
+		final TopicExtractionCore core = new TopicExtractionCore(connector);
+		core.setBackgroundCompletion(false);
+		final ExecutorService pool = Executors.newFixedThreadPool(2);
+		try {
+			final Future<TopicGraph> cut = pool
+					.submit(() -> core.getTopicGraphForSenses(Arrays.asList("drone"), Deadline.after(Duration.ofMillis(300))));
+			Assert.assertTrue(connector.awaitRunningRelatedCalls(1, 10000));
+			final Future<TopicGraph> waiter = pool.submit(() -> core.getTopicGraphForSenses(Arrays.asList("drone")));
+			Assert.assertTrue(cut.get().isPartial());
+			connector.release();
+			// the waiter has time left, so it does not take the partial graph
+			final TopicGraph graph = waiter.get();
+			Assert.assertFalse(graph.isPartial());
+			Assert.assertEquals(22, graph.getVerticesSize());
+		} finally {
+			pool.shutdownNow();
+		}
+	}
+
+	@Test
+	public void testWaiterDeadline() throws Exception {
+		connector.relateParts("drone", 20);
+		connector.block("drone");
+		final TopicExtractionCore core = new TopicExtractionCore(connector);
+		final ExecutorService pool = Executors.newSingleThreadExecutor();
+		try {
+			final Future<TopicGraph> running = pool.submit(() -> core.getTopicGraphForSenses(Arrays.asList("drone")));
+			Assert.assertTrue(connector.awaitRunningRelatedCalls(1, 10000));
+			final TopicGraph graph = core.getTopicGraphForSenses(Arrays.asList("drone"), Deadline.after(Duration.ofMillis(100)));
+			Assert.assertTrue(graph.isPartial());
+			Assert.assertEquals(1, graph.getVerticesSize());
+			connector.release();
+			Assert.assertFalse(running.get().isPartial());
+		} finally {
+			pool.shutdownNow();
+		}
+	}
+
+	@Test
+	public void testPartialSenseGraphIsCompletedInBackground() throws Exception {
+		for (int i = 0; i < 20; i++) {
+			connector.relate("drone", "part " + i).relate("part " + i, "material " + i);
+		}
+		connector.block("part 3");
+		final TopicExtractionCore core = new TopicExtractionCore(connector);
+		core.setMaxSecondHopParallelism(1);
+		core.setBackgroundCompletionTimeout(Duration.ofMinutes(1));
+		core.setTimeout(Duration.ofMillis(300));
+
+		final TopicGraph partial = core.getTopicGraphForSenses(Arrays.asList("drone"));
+		Assert.assertTrue(partial.isPartial());
+		Assert.assertTrue(partial.getVerticesSize() < 41);
+
+		connector.release();
+		Assert.assertTrue(core.awaitBackgroundCompletions(Duration.ofSeconds(10)));
+		final TopicGraph cached = core.getSenseGraphCache().peek("drone");
+		Assert.assertFalse(cached.isPartial());
+		Assert.assertEquals(41, cached.getVerticesSize());
+
+		final TopicGraph complete = core.getTopicGraphForSenses(Arrays.asList("drone"));
+		Assert.assertFalse(complete.isPartial());
+		Assert.assertEquals(41, complete.getVerticesSize());
+	}
+
+	@Test
+	public void testConfigurableHopsAndBudget() {
+		final List<String> shed = Arrays.asList("shed");
+		final int[] expectedVertices = { 3, 6, 8 };
+		for (int hops = 1; hops <= 3; hops++) {
+			final TopicExtractionCore core = new TopicExtractionCore(connector);
+			core.setMaxHops(hops);
+			core.setFrontierBatchSize(2);
+			Assert.assertEquals(expectedVertices[hops - 1], core.getTopicGraphForSenses(shed).getVerticesSize());
+		}
+
+		final TopicExtractionCore core = new TopicExtractionCore(connector);
+		core.setMaxHops(3);
+		core.setSenseGraphBudget(4, 10);
+		final TopicGraph graph = core.getTopicGraphForSenses(shed);
+		Assert.assertEquals(4, graph.getVerticesSize());
+		Assert.assertFalse(graph.isPartial());
+		core.setSenseGraphBudget(10, 2);
+		core.getSenseGraphCache().clear();
+		Assert.assertEquals(2, core.getTopicGraphForSenses(shed).getEdgesSize());
+	}
+
+	@Test
+	public void testHubPruning() {
+		for (int i = 0; i < 20; i++) {
+			connector.relate("drone", "part " + i).relate("part " + i, "material " + i);
+		}
+		for (int i = 0; i < 30; i++) {
+			connector.relate("part 0", "category " + i);
+		}
+		final List<String> drone = Arrays.asList("drone");
+
+		final TopicExtractionCore capped = new TopicExtractionCore(connector);
+		capped.setMaxFanOut(5);
+		final TopicGraph cappedGraph = capped.getTopicGraphForSenses(drone);
+		Assert.assertEquals(Integer.valueOf(15), cappedGraph.getPrunedRelated().get(new WikiVertex("drone", null)));
+		Assert.assertTrue(cappedGraph.getVerticesSize() <= (1 + 5 + (5 * 5)));
+
+		final TopicExtractionCore core = new TopicExtractionCore(connector);
+		core.setHubPruning(10, 0);
+		final TopicGraph graph = core.getTopicGraphForSenses(drone);
+		// drone, parts and materials, but no categories
+		Assert.assertEquals(40, graph.getVerticesSize());
+		Assert.assertEquals(Integer.valueOf(32), graph.getPrunedRelated().get(new WikiVertex("part 0", null)));
+		Assert.assertEquals(Integer.valueOf(32), core.getKnownHubs().get(InMemoryResourceConnector.toResource("part 0")));
+
+		// the known hub is not looked up again
+		core.getSenseGraphCache().clear();
+		final int calls = connector.getRelatedCalls();
+		final TopicGraph again = core.getTopicGraphForSenses(drone);
+		Assert.assertEquals(40, again.getVerticesSize());
+		Assert.assertEquals(calls + 20, connector.getRelatedCalls());
+	}
+
+	@Test
+	public void testIncrementalUpdateEqualsRebuild() {
+		final TopicExtractionCore core = new TopicExtractionCore(connector);
+		final TopicGraph incremental = new TopicGraph();
+		final Map<String, TopicGraph> senseGraphs = new HashMap<>();
+		for (final String sense : SENSES) {
+			senseGraphs.put(sense, core.addSenseToTopicGraph(incremental, sense));
+			// compute scores and connectivity in between, so they have to be updated
+			incremental.getCentralityScores();
+			incremental.getVerticesWithSenseConnectivity(1);
+		}
+		assertSameGraph(core.getTopicGraphForSenses(SENSES), incremental);
+
+		Assert.assertTrue(incremental.removeSenseGraph(senseGraphs.get("shed")));
+		Assert.assertTrue(incremental.removeSenseGraph(senseGraphs.get("lawn")));
+		Assert.assertFalse(incremental.removeSenseGraph(senseGraphs.get("shed")));
+		assertSameGraph(core.getTopicGraphForSenses(Arrays.asList("lawn", "mower", "grass")), incremental);
+
+		// the connectivity index follows direct changes as well
+		final int maxConnectivity = incremental.getMaxSenseConnectivity();
+		for (final WikiVertex v : new ArrayList<>(incremental.getVerticesWithSenseConnectivity(maxConnectivity))) {
+			incremental.removeVertex(v);
+		}
+		Assert.assertTrue(incremental.getVerticesWithSenseConnectivity(maxConnectivity).isEmpty());
+		Assert.assertTrue(incremental.getMaxSenseConnectivity() < maxConnectivity);
+		Assert.assertFalse(incremental.getVerticesWithSenseConnectivity(incremental.getMaxSenseConnectivity()).isEmpty());
+	}
+
+	private static void assertSameGraph(TopicGraph expected, TopicGraph actual) {
+		Assert.assertEquals(expected.getSenses(), actual.getSenses());
+		Assert.assertEquals(expected.getVertexSet(), actual.getVertexSet());
+		Assert.assertEquals(expected.getEdgesSize(), actual.getEdgesSize());
+		final Map<WikiVertex, Double> expectedScores = expected.getCentralityScores();
+		final Map<WikiVertex, Double> actualScores = actual.getCentralityScores();
+		for (final WikiVertex v : expected.getVertexSet()) {
+			Assert.assertEquals(expected.getAvgVertexWeight(v), actual.getAvgVertexWeight(v), 0.0001);
+			Assert.assertEquals(expected.getInitialVerticesFor(v).size(), actual.getInitialVerticesFor(v).size());
+			Assert.assertEquals(expectedScores.get(v), actualScores.get(v), 0.001);
+		}
+		Assert.assertEquals(expected.getMaxSenseConnectivity(), actual.getMaxSenseConnectivity());
+		for (int connectivity = 1; connectivity <= expected.getMaxSenseConnectivity(); connectivity++) {
+			Assert.assertEquals(expected.getVerticesWithSenseConnectivity(connectivity), actual.getVerticesWithSenseConnectivity(connectivity));
+		}
+	}
+}
@@ -0,0 +1,65 @@
+package edu.kit.ipd.pronat.topic_extraction_common.graph;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * @author Sebastian Weigelt
+ *
+ */
+public class SenseSetTest {
+
+	private static SenseSet of(int... ordinals) {
+		final SenseSet set = new SenseSet();
+		for (final int ordinal : ordinals) {
+			set.add(ordinal);
+		}
+		return set;
+	}
+
+	private static List<Integer> toList(SenseSet set) {
+		final List<Integer> list = new ArrayList<>();
+		for (int i = set.nextSense(0); i >= 0; i = set.nextSense(i + 1)) {
+			list.add(i);
+		}
+		return list;
+	}
+
+	@Test
+	public void testBeyondSixtyFourSenses() {
+		final SenseSet set = of(0, 3, 63, 64, 130, 200);
+		Assert.assertEquals(6, set.cardinality());
+		Assert.assertEquals(Arrays.asList(0, 3, 63, 64, 130, 200), toList(set));
+		Assert.assertTrue(set.contains(130));
+		Assert.assertFalse(set.contains(131));
+		Assert.assertFalse(set.contains(1000));
+
+		Assert.assertTrue(of(3, 130).isSubsetOf(set));
+		Assert.assertFalse(of(3, 131).isSubsetOf(set));
+		Assert.assertFalse(set.isSubsetOf(of(0, 3, 63)));
+
+		set.removeAll(of(0, 64, 200, 300));
+		Assert.assertEquals(Arrays.asList(3, 63, 130), toList(set));
+		set.remove(130);
+		set.remove(3);
+		set.remove(63);
+		Assert.assertTrue(set.isEmpty());
+		// equal regardless of the words needed before
+		Assert.assertEquals(new SenseSet(), set);
+		Assert.assertEquals(new SenseSet().hashCode(), set.hashCode());
+	}
+
+	@Test
+	public void testCopyIsIndependent() {
+		final SenseSet set = of(1, 100);
+		final SenseSet copy = set.copy();
+		copy.add(2);
+		copy.remove(100);
+		Assert.assertEquals(Arrays.asList(1, 100), toList(set));
+		Assert.assertEquals(Arrays.asList(1, 2), toList(copy));
+	}
+}
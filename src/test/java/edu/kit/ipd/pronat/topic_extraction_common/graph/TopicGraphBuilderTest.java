@@ -0,0 +1,96 @@
+package edu.kit.ipd.pronat.topic_extraction_common.graph;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * @author Sebastian Weigelt
+ *
+ */
+public class TopicGraphBuilderTest {
+	private static final int THREADS = 8;
+	private static final int NEIGHBOURS = 200;
+
+	private static WikiVertex vertex(int i) {
+		return WikiVertex.of("Builder " + i, "http://dbpedia.org/resource/Builder_" + i);
+	}
+
+	/**
+	 * All threads add the same neighbours to their own source, so most
+	 * insertions race for the same vertices.
+	 */
+	private static TopicGraphBuilder buildConcurrently(TopicGraphBuilder builder, AtomicInteger added) throws Exception {
+		final WikiVertex root = vertex(-1);
+		builder.addVertex(root);
+		builder.addSense(root);
+		for (int t = 0; t < THREADS; t++) {
+			builder.addNeighbour(root, vertex(t));
+		}
+		final ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+		try {
+			final List<Future<?>> futures = new ArrayList<>();
+			for (int t = 0; t < THREADS; t++) {
+				final WikiVertex source = vertex(t);
+				futures.add(executor.submit(() -> {
+					for (int i = THREADS; i < NEIGHBOURS; i++) {
+						if (builder.addNeighbour(source, vertex(i))) {
+							added.incrementAndGet();
+						}
+					}
+				}));
+			}
+			for (final Future<?> future : futures) {
+				future.get();
+			}
+		} finally {
+			executor.shutdownNow();
+		}
+		return builder;
+	}
+
+	@Test
+	public void testConcurrentInsertion() throws Exception {
+		final AtomicInteger added = new AtomicInteger();
+		final TopicGraph graph = buildConcurrently(new TopicGraphBuilder(), added).build();
+
+		// every neighbour was added as new vertex exactly once
+		Assert.assertEquals(NEIGHBOURS - THREADS, added.get());
+		Assert.assertEquals(NEIGHBOURS + 1, graph.getVerticesSize());
+		Assert.assertEquals(THREADS + (THREADS * (NEIGHBOURS - THREADS)), graph.getEdgesSize());
+		Assert.assertEquals(THREADS, graph.getUnderlyingGraph().edgesOf(vertex(-1)).size());
+		Assert.assertEquals(THREADS, graph.getUnderlyingGraph().edgesOf(vertex(NEIGHBOURS - 1)).size());
+		Assert.assertEquals(vertex(-1), graph.getSenses().get(0));
+	}
+
+	@Test
+	public void testBudgetsAndFreeze() throws Exception {
+		final AtomicInteger added = new AtomicInteger();
+		final TopicGraphBuilder vertexBudget = buildConcurrently(new TopicGraphBuilder(50, Integer.MAX_VALUE), added);
+		Assert.assertEquals(50 - 1 - THREADS, added.get());
+		Assert.assertEquals(50, vertexBudget.build().getVerticesSize());
+
+		added.set(0);
+		final TopicGraphBuilder edgeBudget = buildConcurrently(new TopicGraphBuilder(Integer.MAX_VALUE, 300), added);
+		Assert.assertTrue(edgeBudget.isEdgeBudgetExhausted());
+		final TopicGraph graph = edgeBudget.build();
+		Assert.assertEquals(300, graph.getEdgesSize());
+		// neighbours are only added together with an edge
+		Assert.assertEquals(1 + THREADS + added.get(), graph.getVerticesSize());
+
+		// frozen, so further insertions are rejected
+		Assert.assertSame(graph, edgeBudget.build());
+		final TopicGraphBuilder frozen = new TopicGraphBuilder();
+		frozen.addVertex(vertex(-1));
+		frozen.build();
+		Assert.assertFalse(frozen.addVertex(vertex(NEIGHBOURS)));
+		Assert.assertFalse(frozen.addNeighbour(vertex(-1), vertex(NEIGHBOURS)));
+		Assert.assertEquals(1, frozen.build().getVerticesSize());
+	}
+}
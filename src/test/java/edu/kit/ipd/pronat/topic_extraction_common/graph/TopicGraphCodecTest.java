@@ -0,0 +1,60 @@
+package edu.kit.ipd.pronat.topic_extraction_common.graph;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * @author Sebastian Weigelt
+ *
+ */
+public class TopicGraphCodecTest {
+
+	private static TopicGraph createGraph() {
+		final WikiVertex lawn = WikiVertex.of("Lawn", "http://dbpedia.org/resource/Lawn");
+		final WikiVertex mower = WikiVertex.of("Lawn mower", "http://dbpedia.org/resource/Lawn_mower");
+		final WikiVertex garden = WikiVertex.of("Garden", "http://dbpedia.org/resource/Garden");
+		final TopicGraph graph = new TopicGraph(lawn);
+		graph.addVertex(lawn);
+		graph.addVertex(mower);
+		graph.addVertex(garden);
+		graph.addEdge(lawn, mower);
+		graph.addEdge(lawn, garden);
+		graph.addPrunedRelated(lawn, 3);
+		return graph;
+	}
+
+	@Test
+	public void testRoundTrip() {
+		final TopicGraph graph = createGraph();
+		final TopicGraph decoded = TopicGraphCodec.decode(ByteBuffer.wrap(TopicGraphCodec.encode(graph)));
+		Assert.assertEquals(Arrays.asList(graph.getVertexSet().toArray()), Arrays.asList(decoded.getVertexSet().toArray()));
+		Assert.assertEquals(graph.getSenses(), decoded.getSenses());
+		Assert.assertEquals(graph.getEdgesSize(), decoded.getEdgesSize());
+		Assert.assertEquals(graph.getPrunedRelated(), decoded.getPrunedRelated());
+		for (final WikiVertex v : graph.getVertexSet()) {
+			Assert.assertEquals(graph.getAvgVertexWeight(v), decoded.getAvgVertexWeight(v), 0.0);
+		}
+	}
+
+	@Test
+	public void testCorruptInputIsRejected() {
+		final byte[] encoded = TopicGraphCodec.encode(createGraph());
+		// version 2, unweighted, one vertex and no further senses, then the label
+		final byte[][] corrupt = { { 2, 0, 1, 0, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, 0x0F, 0 }, // negative length
+				{ 2, 0, 1, 0, 100, 0, 'L' }, // longer than the input
+				{ 2, 0, 1, 0, 2, 5, 'L' }, // shares more than the previous label
+				{ 2, 0, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, 0x0F, 0 }, // negative count
+				Arrays.copyOf(encoded, encoded.length / 2) };
+		for (final byte[] bytes : corrupt) {
+			try {
+				TopicGraphCodec.decode(ByteBuffer.wrap(bytes));
+				Assert.fail("Decoded corrupt input " + Arrays.toString(bytes));
+			} catch (final IllegalArgumentException e) {
+				// expected, the store treats it as a miss
+			}
+		}
+	}
+}
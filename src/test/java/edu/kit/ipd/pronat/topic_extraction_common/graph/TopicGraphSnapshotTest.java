@@ -0,0 +1,107 @@
+package edu.kit.ipd.pronat.topic_extraction_common.graph;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * @author Sebastian Weigelt
+ *
+ */
+public class TopicGraphSnapshotTest {
+	private TopicGraph topicGraph;
+
+	@Before
+	public void before() {
+		final Random random = new Random(7);
+		final List<WikiVertex> vertices = new ArrayList<>();
+		final List<TopicGraph> senseGraphs = new ArrayList<>();
+		for (int i = 0; i < 200; i++) {
+			vertices.add(new WikiVertex("vertex " + i, "vertex" + i));
+		}
+		for (int s = 0; s < 10; s++) {
+			final WikiVertex sense = vertices.get(s);
+			final TopicGraph senseGraph = new TopicGraph(sense);
+			senseGraph.addVertex(sense);
+			for (int i = 0; i < 30; i++) {
+				final WikiVertex v = vertices.get(random.nextInt(vertices.size()));
+				senseGraph.addVertex(v);
+				senseGraph.addEdge(sense, v);
+			}
+			senseGraphs.add(senseGraph);
+		}
+		// repeated sense graphs, so that there are different weights
+		senseGraphs.add(senseGraphs.get(0));
+		senseGraphs.add(senseGraphs.get(3));
+		topicGraph = TopicGraph.createTopicGraph(senseGraphs);
+	}
+
+	@Test
+	public void testSnapshotMatchesGraph() {
+		final TopicGraphSnapshot snapshot = topicGraph.getSnapshot();
+		Assert.assertEquals(topicGraph.getVerticesSize(), snapshot.getVertexCount());
+		Assert.assertEquals(topicGraph.getEdgesSize(), snapshot.getEdgeCount());
+		for (final WikiVertex v : topicGraph.getVertexSet()) {
+			final int index = snapshot.indexOf(v);
+			Assert.assertSame(v, snapshot.getVertex(index));
+			Assert.assertEquals(topicGraph.getSenses().contains(v), snapshot.isSense(index));
+			Assert.assertEquals(topicGraph.getAvgVertexWeight(v), snapshot.getAvgVertexWeight(index), 1e-12);
+			for (final WikiVertex w : topicGraph.getVertexSet()) {
+				Assert.assertEquals(topicGraph.checkAdjacency(v, w), snapshot.isAdjacent(index, snapshot.indexOf(w)));
+			}
+		}
+		Assert.assertEquals(-1, snapshot.indexOf(new WikiVertex("unknown", "unknown")));
+		Assert.assertSame(snapshot, topicGraph.getSnapshot());
+
+		topicGraph.increaseWeights();
+		Assert.assertNotSame(snapshot, topicGraph.getSnapshot());
+	}
+
+	@Test
+	public void testRankingOnSnapshotEqualsRankingOnGraph() {
+		final Map<WikiVertex, Double> expected = new BiasedPageRank<>(topicGraph.getUnderlyingGraph(), topicGraph.getSenses()).getScores();
+		final Map<WikiVertex, Double> actual = topicGraph.getCentralityScores();
+		Assert.assertEquals(expected, actual);
+	}
+
+	@Test
+	public void testDeferredWeightsEqualEagerWeights() {
+		final WikiVertex a = new WikiVertex("deferred a", "deferreda");
+		final WikiVertex b = new WikiVertex("deferred b", "deferredb");
+		final WikiVertex x = new WikiVertex("deferred x", "deferredx");
+		final WikiVertex y = new WikiVertex("deferred y", "deferredy");
+		final TopicGraph aGraph = new TopicGraph(a);
+		aGraph.addVertex(a);
+		aGraph.addVertex(x);
+		aGraph.addVertex(y);
+		aGraph.addEdge(a, x);
+		aGraph.addEdge(a, y);
+		final TopicGraph bGraph = new TopicGraph(b);
+		bGraph.addVertex(b);
+		bGraph.addVertex(x);
+		bGraph.addEdge(b, x);
+
+		final TopicGraph graph = TopicGraph.createTopicGraph(Arrays.asList(aGraph, bGraph, aGraph));
+		graph.insertSenseGraph(aGraph);
+		graph.increaseWeights();
+		Assert.assertTrue(graph.removeSenseGraph(aGraph));
+		// a twice plus the increase, b once plus the increase
+		Assert.assertEquals(3.0, graph.getAvgVertexWeight(a), 0.0);
+		Assert.assertEquals(2.0, graph.getAvgVertexWeight(b), 0.0);
+		Assert.assertEquals(2.5, graph.getAvgVertexWeight(x), 0.0);
+
+		// the increase does not cover edges that are added later
+		graph.increaseWeights();
+		graph.addEdge(b, y);
+		Assert.assertEquals(2.0, graph.getAvgVertexWeight(b), 0.0);
+		Assert.assertEquals(3.5, graph.copy().getAvgVertexWeight(x), 0.0);
+		final Map<WikiVertex, Double> expected = new BiasedPageRank<>(graph.copy().getUnderlyingGraph(), graph.getSenses()).getScores();
+		Assert.assertEquals(expected, graph.getCentralityScores());
+	}
+}
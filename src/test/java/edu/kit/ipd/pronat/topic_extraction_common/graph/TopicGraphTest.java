@@ -0,0 +1,141 @@
+package edu.kit.ipd.pronat.topic_extraction_common.graph;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * @author Sebastian Weigelt
+ *
+ */
+public class TopicGraphTest {
+	private final WikiVertex lawn = WikiVertex.of("Lawn", "http://dbpedia.org/resource/Lawn");
+	private final WikiVertex lawnLowerCase = WikiVertex.of("lawn", "http://dbpedia.org/resource/lawn");
+	private final WikiVertex mower = WikiVertex.of("Lawn mower", "http://dbpedia.org/resource/Lawn_mower");
+
+	@Test
+	public void testLookupFollowsChanges() {
+		final TopicGraph graph = new TopicGraph(lawn);
+		graph.addVertex(lawn);
+		graph.addVertex(mower);
+		graph.addEdge(lawn, mower);
+
+		Assert.assertEquals(Optional.of(lawn), graph.getVertex("Lawn"));
+		Assert.assertEquals(Optional.empty(), graph.getVertex("lawn"));
+		Assert.assertSame(lawn, graph.getVertexIgnoreCase("LAWN").get());
+		Assert.assertSame(mower, graph.getVertexByResource("http://dbpedia.org/resource/Lawn_mower").get());
+
+		graph.addVertex(lawnLowerCase);
+		Assert.assertSame(lawnLowerCase, graph.getVertex("lawn").get());
+		// the vertex added first wins
+		Assert.assertSame(lawn, graph.getVertexIgnoreCase("lawn").get());
+		graph.removeVertex(lawn);
+		Assert.assertEquals(Optional.empty(), graph.getVertex("Lawn"));
+		Assert.assertEquals(Optional.empty(), graph.getVertexByResource("http://dbpedia.org/resource/Lawn"));
+		Assert.assertSame(lawnLowerCase, graph.getVertexIgnoreCase("Lawn").get());
+		graph.removeVertex(lawnLowerCase);
+		Assert.assertEquals(Optional.empty(), graph.getVertexIgnoreCase("lawn"));
+	}
+
+	@Test
+	public void testLookupInMergedAndCopiedGraphs() {
+		final TopicGraph lawnGraph = new TopicGraph(lawn);
+		lawnGraph.addVertex(lawn);
+		lawnGraph.addVertex(mower);
+		lawnGraph.addEdge(lawn, mower);
+		final TopicGraph merged = TopicGraph.createTopicGraph(Arrays.asList(lawnGraph));
+		Assert.assertSame(mower, merged.getVertexIgnoreCase("lawn MOWER").get());
+
+		final TopicGraph decoded = TopicGraphCodec.decode(ByteBuffer.wrap(TopicGraphCodec.encode(merged.copy())));
+		Assert.assertEquals(mower, decoded.getVertexByResource(mower.getResource()).get());
+		Assert.assertTrue(merged.removeSenseGraph(lawnGraph));
+		Assert.assertEquals(Optional.empty(), merged.getVertex("Lawn mower"));
+	}
+
+	private static WikiVertex vertex(String label) {
+		return new WikiVertex(label, "http://dbpedia.org/resource/" + label.replace(' ', '_'));
+	}
+
+	/**
+	 * Creates a sense graph in which the sense is related to the given labels.
+	 */
+	private static TopicGraph createSenseGraph(String sense, String... related) {
+		final WikiVertex senseVertex = vertex(sense);
+		final TopicGraph graph = new TopicGraph(senseVertex);
+		graph.addVertex(senseVertex);
+		for (final String label : related) {
+			graph.addVertex(vertex(label));
+			graph.addEdge(senseVertex, vertex(label));
+		}
+		return graph;
+	}
+
+	@Test
+	public void testAddSenseGraphInPlaceEqualsMerge() {
+		final TopicGraph lawn = createSenseGraph("lawn", "garden", "grass", "plant");
+		lawn.addEdge(vertex("garden"), vertex("plant"));
+		final TopicGraph shed = createSenseGraph("shed", "garden", "building", "architecture");
+		final TopicGraph merged = TopicGraph.mergeGraphs(lawn, shed);
+		final TopicGraph inPlace = lawn.copy();
+		inPlace.addSenseGraph(shed);
+
+		Assert.assertEquals(merged.getSenses(), inPlace.getSenses());
+		Assert.assertEquals(merged.getVertexSet(), inPlace.getVertexSet());
+		Assert.assertEquals(lawn.getEdgesSize() + shed.getEdgesSize(), inPlace.getEdgesSize());
+		Assert.assertEquals(merged.getEdgesSize(), inPlace.getEdgesSize());
+		for (final WikiVertex v : merged.getVertexSet()) {
+			Assert.assertEquals(merged.degreeOf(v), inPlace.degreeOf(v));
+		}
+		// the added sense graph is not modified
+		Assert.assertEquals(Arrays.asList(vertex("shed")), shed.getSenses());
+		Assert.assertEquals(4, shed.getVerticesSize());
+	}
+
+	@Test
+	public void testRepeatedSenseGraphsAreMergedOnce() {
+		final TopicGraph lawn = createSenseGraph("lawn", "garden", "grass");
+		final TopicGraph shed = createSenseGraph("shed", "garden", "building");
+		final TopicGraph topicGraph = TopicGraph.createTopicGraph(Arrays.asList(lawn, shed, lawn, lawn, shed, lawn));
+		Assert.assertEquals(Arrays.asList(vertex("lawn"), vertex("shed")), topicGraph.getSenses());
+		Assert.assertEquals(5, topicGraph.getVerticesSize());
+		Assert.assertEquals(4, topicGraph.getEdgesSize());
+		// repeated senses are merged once, with increased weights
+		Assert.assertEquals(4.0, topicGraph.getAvgVertexWeight(vertex("lawn")), 0.0);
+		Assert.assertEquals(2.0, topicGraph.getAvgVertexWeight(vertex("shed")), 0.0);
+		Assert.assertEquals(3.0, topicGraph.getAvgVertexWeight(vertex("garden")), 0.0);
+	}
+
+	@Test
+	public void testSensesGetOrdinalsWhenAdded() {
+		final TopicGraph graph = new TopicGraph(lawn);
+		graph.addSense(mower);
+		// senses without any connected vertex have an ordinal as well
+		Assert.assertEquals(0, graph.getSenseOrdinal(lawn));
+		Assert.assertEquals(1, graph.getSenseOrdinal(mower));
+		Assert.assertEquals(-1, graph.getSenseOrdinal(lawnLowerCase));
+		Assert.assertEquals(2, graph.getSenseSet().cardinality());
+
+		final TopicGraph merged = TopicGraph.mergeGraphs(graph, new TopicGraph(lawnLowerCase));
+		Assert.assertEquals(2, merged.getSenseOrdinal(lawnLowerCase));
+		Assert.assertEquals(3, merged.getSenseSet().cardinality());
+	}
+
+	@Test
+	public void testSensesAreCopied() {
+		final TopicGraph graph = new TopicGraph(lawn);
+		try {
+			graph.getSenses().add(mower);
+			Assert.fail();
+		} catch (final UnsupportedOperationException e) {
+			// expected
+		}
+		final List<WikiVertex> senses = graph.getSenses();
+		graph.addSense(mower);
+		Assert.assertEquals(Arrays.asList(lawn), senses);
+		Assert.assertEquals(Arrays.asList(lawn, mower), graph.getSenses());
+	}
+}
@@ -0,0 +1,102 @@
+package edu.kit.ipd.pronat.topic_extraction_common.graph;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * @author Sebastian Weigelt
+ *
+ */
+public class WikiVertexTest {
+
+	@Test
+	public void testInterningByLabel() {
+		final WikiVertex shed = WikiVertex.of("Shed", "http://dbpedia.org/resource/Shed");
+		Assert.assertSame(shed, WikiVertex.of("Shed", "http://dbpedia.org/resource/Shed"));
+		// equal vertices are the same instance, even with another resource
+		Assert.assertSame(shed, WikiVertex.of("Shed", "http://dbpedia.org/resource/Shed_(building)"));
+		Assert.assertNotSame(shed, WikiVertex.of("shed", "http://dbpedia.org/resource/Shed"));
+		Assert.assertNotEquals(shed.getId(), WikiVertex.of("shed", "http://dbpedia.org/resource/Shed").getId());
+	}
+
+	@Test
+	public void testConstructorDoesNotIntern() {
+		final int interned = WikiVertex.getInternedCount();
+		final WikiVertex vertex = new WikiVertex("Greenhouse", "http://dbpedia.org/resource/Greenhouse");
+		Assert.assertEquals(interned, WikiVertex.getInternedCount());
+		Assert.assertEquals(-1, vertex.getId());
+		Assert.assertEquals(vertex, WikiVertex.of("Greenhouse", "http://dbpedia.org/resource/Greenhouse"));
+		Assert.assertNotSame(vertex, WikiVertex.of("Greenhouse", "http://dbpedia.org/resource/Greenhouse"));
+
+		final WikiVertex unlabeled = new WikiVertex(null, "http://dbpedia.org/resource/Greenhouse");
+		Assert.assertEquals(unlabeled, new WikiVertex(null, null));
+		Assert.assertNotEquals(unlabeled, vertex);
+	}
+
+	@Test
+	public void testUnusedVerticesAreDropped() throws InterruptedException {
+		List<WikiVertex> vertices = new ArrayList<>();
+		for (int i = 0; i < 100; i++) {
+			vertices.add(WikiVertex.of("Dropped " + i, "http://dbpedia.org/resource/Dropped_" + i));
+		}
+		final int interned = WikiVertex.getInternedCount();
+		final WeakReference<WikiVertex> reference = new WeakReference<>(vertices.get(0));
+		vertices = null;
+		for (int i = 0; (i < 50) && (reference.get() != null); i++) {
+			System.gc();
+			Thread.sleep(10);
+		}
+		Assert.assertNull(reference.get());
+		Assert.assertTrue(WikiVertex.getInternedCount() < interned);
+	}
+
+	@Test
+	public void testIdsOfDroppedVerticesAreReused() throws InterruptedException {
+		final int interned = WikiVertex.getInternedCount();
+		List<WikiVertex> vertices = new ArrayList<>();
+		for (int i = 0; i < 100; i++) {
+			vertices.add(WikiVertex.of("Reused " + i, "http://dbpedia.org/resource/Reused_" + i));
+		}
+		vertices = null;
+		for (int i = 0; (i < 50) && (WikiVertex.getInternedCount() > interned); i++) {
+			System.gc();
+			Thread.sleep(10);
+		}
+		Assert.assertTrue(WikiVertex.getInternedCount() <= interned);
+		final int idBound = WikiVertex.getIdBound();
+		for (int i = 0; i < 100; i++) {
+			final WikiVertex vertex = WikiVertex.of("Reusing " + i, "http://dbpedia.org/resource/Reusing_" + i);
+			Assert.assertTrue(vertex.getId() < idBound);
+		}
+		Assert.assertEquals(idBound, WikiVertex.getIdBound());
+	}
+
+	@Test
+	public void testSerializationKeepsCanonicalInstances() throws Exception {
+		final WikiVertex canonical = WikiVertex.of("Garden shed", "http://dbpedia.org/resource/Garden_shed");
+		Assert.assertSame(canonical, serializeAndDeserialize(canonical));
+		final WikiVertex vertex = new WikiVertex("Garden shed", "http://dbpedia.org/resource/Garden_shed");
+		final WikiVertex deserialized = serializeAndDeserialize(vertex);
+		Assert.assertEquals(vertex, deserialized);
+		Assert.assertNotSame(canonical, deserialized);
+	}
+
+	private static WikiVertex serializeAndDeserialize(WikiVertex vertex) throws IOException, ClassNotFoundException {
+		final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+			out.writeObject(vertex);
+		}
+		try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+			return (WikiVertex) in.readObject();
+		}
+	}
+}
@@ -0,0 +1,271 @@
+package edu.kit.ipd.pronat.topic_extraction_common.ontology;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A {@link ResourceConnector} working on a fixed, in-memory relation. Used to
+ * test the topic extraction without an (online) DBPedia endpoint.
+ *
+ * @author Sebastian Weigelt
+ *
+ */
+public class InMemoryResourceConnector implements ResourceConnector {
+	public static final String PREFIX = "http://dbpedia.org/resource/";
+	/** Senses of a document about the relation of {@link #garden()} */
+	public static final List<String> GARDEN_SENSES = Collections.unmodifiableList(Arrays.asList("lawn", "mower", "grass", "lawn", "shed"));
+
+	private final Map<String, Set<String>> related = new HashMap<>();
+	private final AtomicInteger resourceCalls = new AtomicInteger();
+	private final AtomicInteger relatedCalls = new AtomicInteger();
+	private final AtomicInteger runningRelatedCalls = new AtomicInteger();
+	private final AtomicInteger maxRunningRelatedCalls = new AtomicInteger();
+	private long latencyMillis = 0;
+	/** Resources whose lookups wait for the gate */
+	private final Set<String> blocked = ConcurrentHashMap.newKeySet();
+	private volatile boolean blockAll = false;
+	private volatile CountDownLatch gate = new CountDownLatch(0);
+	private final AtomicInteger interruptedRelatedCalls = new AtomicInteger();
+
+	/**
+	 * Creates a connector for the small relation around a garden that the tests
+	 * share.
+	 *
+	 * @return the connector
+	 */
+	public static InMemoryResourceConnector garden() {
+		final InMemoryResourceConnector connector = new InMemoryResourceConnector();
+		connector.relate("lawn", "garden").relate("lawn", "grass").relate("mower", "lawn").relate("mower", "machine");
+		connector.relate("grass", "plant").relate("shed", "garden").relate("shed", "building").relate("garden", "plant");
+		connector.relate("machine", "tool").relate("building", "architecture");
+		return connector;
+	}
+
+	/**
+	 * Relates the resource to the given number of parts ("part 0", "part 1",
+	 * ...), e.g. for a wide second hop.
+	 *
+	 * @param label
+	 *            label of the resource
+	 * @param parts
+	 *            number of parts
+	 * @return this connector
+	 */
+	public InMemoryResourceConnector relateParts(String label, int parts) {
+		for (int i = 0; i < parts; i++) {
+			relate(label, "part " + i);
+		}
+		return this;
+	}
+
+	/**
+	 * Adds an (undirected) relation between the two resources with the given
+	 * labels.
+	 *
+	 * @param label1
+	 *            label of the first resource
+	 * @param label2
+	 *            label of the second resource
+	 * @return this connector
+	 */
+	public InMemoryResourceConnector relate(String label1, String label2) {
+		related.computeIfAbsent(toResource(label1), k -> new HashSet<>()).add(toResource(label2));
+		related.computeIfAbsent(toResource(label2), k -> new HashSet<>()).add(toResource(label1));
+		return this;
+	}
+
+	/**
+	 * Sets an artificial latency for every call of {@link #getRelatedFor(String)}
+	 *
+	 * @param latencyMillis
+	 *            the latency in milliseconds
+	 */
+	public void setLatency(long latencyMillis) {
+		this.latencyMillis = latencyMillis;
+	}
+
+	/**
+	 * Blocks the lookups of the related resources of the resources with the given
+	 * labels (of all resources, if no labels are given) until {@link #release()}
+	 * is called or the deadline of the lookup expires.
+	 *
+	 * @param labels
+	 *            the labels of the resources to block
+	 */
+	public void block(String... labels) {
+		gate = new CountDownLatch(1);
+		blockAll = labels.length == 0;
+		for (final String label : labels) {
+			blocked.add(toResource(label));
+		}
+	}
+
+	/**
+	 * Releases all blocked lookups.
+	 */
+	public void release() {
+		blockAll = false;
+		blocked.clear();
+		gate.countDown();
+	}
+
+	/**
+	 * Waits until the given number of lookups are running at the same time, e.g.
+	 * because they are blocked.
+	 *
+	 * @param calls
+	 *            the number of lookups
+	 * @param timeoutMillis
+	 *            how long to wait at most
+	 * @return whether the lookups were running in time
+	 * @throws InterruptedException
+	 *             if interrupted while waiting
+	 */
+	public boolean awaitRunningRelatedCalls(int calls, long timeoutMillis) throws InterruptedException {
+		return await(runningRelatedCalls, calls, timeoutMillis);
+	}
+
+	/**
+	 * Waits until {@link #getResourceStringFor(String)} was called the given
+	 * number of times.
+	 *
+	 * @param calls
+	 *            the number of calls
+	 * @param timeoutMillis
+	 *            how long to wait at most
+	 * @return whether the calls were made in time
+	 * @throws InterruptedException
+	 *             if interrupted while waiting
+	 */
+	public boolean awaitResourceCalls(int calls, long timeoutMillis) throws InterruptedException {
+		return await(resourceCalls, calls, timeoutMillis);
+	}
+
+	/**
+	 * Waits until the given number of lookups were interrupted.
+	 *
+	 * @param calls
+	 *            the number of lookups
+	 * @param timeoutMillis
+	 *            how long to wait at most
+	 * @return whether the lookups were interrupted in time
+	 * @throws InterruptedException
+	 *             if interrupted while waiting
+	 */
+	public boolean awaitInterruptedRelatedCalls(int calls, long timeoutMillis) throws InterruptedException {
+		return await(interruptedRelatedCalls, calls, timeoutMillis);
+	}
+
+	private synchronized boolean await(AtomicInteger counter, int calls, long timeoutMillis) throws InterruptedException {
+		final long end = System.currentTimeMillis() + timeoutMillis;
+		while (counter.get() < calls) {
+			final long remaining = end - System.currentTimeMillis();
+			if (remaining <= 0) {
+				return false;
+			}
+			wait(remaining);
+		}
+		return true;
+	}
+
+	/**
+	 * @return the number of calls of {@link #getResourceStringFor(String)}
+	 */
+	public int getResourceCalls() {
+		return resourceCalls.get();
+	}
+
+	public int getRelatedCalls() {
+		return relatedCalls.get();
+	}
+
+	/**
+	 * @return the number of lookups that were interrupted, e.g. by a cancellation
+	 */
+	public int getInterruptedRelatedCalls() {
+		return interruptedRelatedCalls.get();
+	}
+
+	/**
+	 * Returns the highest number of calls of {@link #getRelatedFor(String)} that
+	 * were running at the same time
+	 *
+	 * @return the maximum number of concurrent calls
+	 */
+	public int getMaxConcurrentRelatedCalls() {
+		return maxRunningRelatedCalls.get();
+	}
+
+	public static String toResource(String label) {
+		return PREFIX + label.replace(" ", "_");
+	}
+
+	@Override
+	public Optional<String> getResourceStringFor(String label) {
+		synchronized (this) {
+			resourceCalls.incrementAndGet();
+			notifyAll();
+		}
+		final String resource = toResource(label);
+		return related.containsKey(resource) ? Optional.of(resource) : Optional.empty();
+	}
+
+	@Override
+	public Set<String> getRelatedFor(String resource) {
+		return getRelatedFor(resource, Deadline.none());
+	}
+
+	@Override
+	public Set<String> getRelatedFor(String resource, Deadline deadline) {
+		relatedCalls.incrementAndGet();
+		synchronized (this) {
+			maxRunningRelatedCalls.accumulateAndGet(runningRelatedCalls.incrementAndGet(), Math::max);
+			notifyAll();
+		}
+		try {
+			if (latencyMillis > 0) {
+				Thread.sleep(deadline.remainingMillis(latencyMillis));
+			}
+			if (blockAll || blocked.contains(resource)) {
+				gate.await(deadline.remainingMillis(Long.MAX_VALUE), TimeUnit.MILLISECONDS);
+			}
+		} catch (final InterruptedException e) {
+			synchronized (this) {
+				interruptedRelatedCalls.incrementAndGet();
+				notifyAll();
+			}
+			Thread.currentThread().interrupt();
+		} finally {
+			runningRelatedCalls.decrementAndGet();
+		}
+		if (deadline.isExpired()) {
+			return new HashSet<>();
+		}
+		return new HashSet<>(related.getOrDefault(resource, new HashSet<>()));
+	}
+
+	@Override
+	public Optional<String> getLabelForResource(String resource) {
+		return Optional.of(getLabelForResourceSimple(resource));
+	}
+
+	@Override
+	public String getLabelForResourceSimple(String dbResource) {
+		return dbResource.substring(PREFIX.length()).replace("_", " ");
+	}
+
+	@Override
+	public Set<String> getEquivalentResources(String resource) {
+		return new HashSet<>();
+	}
+}